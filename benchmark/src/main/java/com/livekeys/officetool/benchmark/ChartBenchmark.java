@@ -0,0 +1,75 @@
+package com.livekeys.officetool.benchmark;
+
+import com.livekeys.officetool.pptutil.PPTUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTBarChart;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图表缓存更新的性能测试，每次调用交替写入两组数据，保证每个点的值都有变化
+ * 只使用最初版本就有的接口，数组版本的接口在 newapi.ChartArrayBenchmark 中测试
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChartBenchmark {
+
+    @Param({"10000"})
+    public int points;
+
+    private PPTUtil pptUtil;
+    private CTBarChart barChart;
+    private List<List<String>> stringValues;
+    private List<List<List<String>>> cats;
+    private int round;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pptUtil = new PPTUtil(TemplateFactory.toTempFile(TemplateFactory.chartDeck(points)).getPath());
+        barChart = pptUtil.getBarChartFromChart(pptUtil.getCharts().get(0)).get(0);
+
+        stringValues = new ArrayList<List<String>>();
+        cats = new ArrayList<List<List<String>>>();
+        for (int k = 0; k < 2; k++) {
+            List<String> strings = new ArrayList<String>(points);
+            List<String> cat = new ArrayList<String>(points);
+            for (int i = 0; i < points; i++) {
+                strings.add(Double.toString(i * (k + 1.5)));
+                cat.add("cat " + k + "-" + i);
+            }
+            stringValues.add(strings);
+            cats.add(Collections.singletonList(cat));
+        }
+    }
+
+    @Benchmark
+    public CTBarChart updateDataCacheStrings() {
+        pptUtil.updateBarDataCache(barChart, 0, stringValues.get(round++ & 1));
+        return barChart;
+    }
+
+    @Benchmark
+    public CTBarChart updateCat() {
+        pptUtil.updateBarCat(barChart, 0, cats.get(round++ & 1));
+        return barChart;
+    }
+}
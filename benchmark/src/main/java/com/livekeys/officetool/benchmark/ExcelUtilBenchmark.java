@@ -0,0 +1,64 @@
+package com.livekeys.officetool.benchmark;
+
+import com.livekeys.officetool.excelutil.ExcelUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExcelUtil 读写的性能测试，只使用最初版本就有的接口，流式读取在 newapi.ExcelStreamReaderBenchmark 中测试
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Thread)
+public class ExcelUtilBenchmark {
+
+    @Param({"1000", "20000"})
+    public int rows;
+
+    private File template;
+    private File export;
+    private ExcelUtil excelUtil;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        template = TemplateFactory.toTempFile(TemplateFactory.workbook(rows, 10));
+        export = TemplateFactory.createTempFile(".xlsx");
+        excelUtil = new ExcelUtil(template.getPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        excelUtil.getExcel().close();
+    }
+
+    @Benchmark
+    public int read() throws IOException {
+        ExcelUtil util = new ExcelUtil(template.getPath());
+        int count = util.getPhysicalNumberOfRows(util.getSheet(0));
+        util.getExcel().close();
+        return count;
+    }
+
+    @Benchmark
+    public void write() {
+        excelUtil.writeExcel(export.getPath());
+    }
+}
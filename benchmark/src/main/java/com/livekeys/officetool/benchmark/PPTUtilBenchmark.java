@@ -0,0 +1,222 @@
+package com.livekeys.officetool.benchmark;
+
+import com.livekeys.officetool.pptutil.PPTUtil;
+import com.livekeys.officetool.pptutil.entity.ParagraphTextStyle;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTableCell;
+import org.apache.poi.xslf.usermodel.XSLFTableRow;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PPTUtil 常用操作的性能测试，只使用最初版本就有的接口，可以对比各个版本的结果
+ * 新版本增加的接口在 newapi 包中测试
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PPTUtilBenchmark {
+
+    /**
+     * 读写整个 ppt
+     */
+    @State(Scope.Thread)
+    public static class DeckState {
+        @Param({"10", "50"})
+        public int slides;
+
+        public File template;
+        public File export;
+        public PPTUtil pptUtil;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            template = TemplateFactory.toTempFile(TemplateFactory.mixedDeck(slides));
+            export = TemplateFactory.createTempFile(".pptx");
+            pptUtil = new PPTUtil(template.getPath());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            pptUtil.getPPTX().close();
+        }
+    }
+
+    /**
+     * 每个段落中有 tagCount 个标签，每轮迭代前读取一份有 BATCH 个这种段落的 ppt，每次调用替换其中一个段落
+     * 最初版本的 replaceTagInParagraph 遇到跨 run 的标签会无限递归，对比该版本时只能用 splitTags=false
+     */
+    @State(Scope.Thread)
+    public static class TagState {
+        public static final int BATCH = 50;
+
+        @Param({"10", "100", "1000"})
+        public int tagCount;
+
+        @Param({"true", "false"})
+        public boolean splitTags;
+
+        public File template;
+        public Map<String, Object> paramMap;
+        public PPTUtil pptUtil;
+        public List<XSLFTextParagraph> paragraphs;
+        public int next;
+
+        @Setup(Level.Trial)
+        public void setUpTrial() throws IOException {
+            template = TemplateFactory.toTempFile(TemplateFactory.tagDeck(tagCount, BATCH, splitTags));
+            paramMap = TemplateFactory.tagParams(tagCount);
+        }
+
+        @Setup(Level.Iteration)
+        public void setUpIteration() {
+            pptUtil = new PPTUtil(template.getPath());
+            paragraphs = new ArrayList<XSLFTextParagraph>(BATCH);
+            for (XSLFSlide slide : pptUtil.getSlides()) {
+                XSLFTextParagraph paragraph = pptUtil.getParagraphsFromSlide(slide).get(0);
+                int tags = countTags(paragraph.getText());
+                if (tags != tagCount) {
+                    throw new IllegalStateException("expected " + tagCount + " tags in the paragraph, found " + tags);
+                }
+                paragraphs.add(paragraph);
+            }
+            next = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDownIteration() throws IOException {
+            pptUtil.getPPTX().close();
+        }
+
+        // 统计未替换的标签数
+        private static int countTags(String text) {
+            int count = 0;
+            for (int i = text.indexOf("{tag"); i >= 0; i = text.indexOf("{tag", i + 1)) {
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * 组合嵌套 depth 层的幻灯片
+     */
+    @State(Scope.Thread)
+    public static class GroupState {
+        @Param({"1", "5", "20"})
+        public int depth;
+
+        public PPTUtil pptUtil;
+        public XSLFSlide slide;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            pptUtil = new PPTUtil(TemplateFactory.toTempFile(TemplateFactory.groupedDeck(depth, 10)).getPath());
+            slide = pptUtil.getSlides().get(0);
+        }
+    }
+
+    /**
+     * rows 行 10 列的表格，每次调用交替写入两组文本
+     */
+    @State(Scope.Thread)
+    public static class TableState {
+        @Param({"50", "500"})
+        public int rows;
+
+        public PPTUtil pptUtil;
+        public XSLFTable table;
+        public ParagraphTextStyle textStyle;
+        public int round;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            pptUtil = new PPTUtil(TemplateFactory.toTempFile(TemplateFactory.tableDeck(rows, 10)).getPath());
+            table = pptUtil.getAllTableFromSlide(pptUtil.getSlides().get(0)).get(0);
+            textStyle = new ParagraphTextStyle();
+            textStyle.setBold(true);
+            textStyle.setFontFamily("微软雅黑");
+            textStyle.setWesternFontFamily("Arial");
+            textStyle.setFontSize("12");
+            textStyle.setColorHex("#333333");
+        }
+    }
+
+    @Benchmark
+    public PPTUtil load(DeckState state) {
+        PPTUtil pptUtil = new PPTUtil(state.template.getPath());
+        try {
+            pptUtil.getPPTX().close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return pptUtil;
+    }
+
+    @Benchmark
+    public void write(DeckState state) {
+        state.pptUtil.writePPT(state.export.getPath());
+    }
+
+    /**
+     * 结果是替换 TagState.BATCH 个段落的总时间
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10, batchSize = TagState.BATCH)
+    @Measurement(iterations = 20, batchSize = TagState.BATCH)
+    public XSLFTextParagraph replaceTagInParagraph(TagState state) {
+        XSLFTextParagraph paragraph = state.paragraphs.get(state.next++);
+        state.pptUtil.replaceTagInParagraph(paragraph, state.paramMap);
+        return paragraph;
+    }
+
+    @Benchmark
+    public List<XSLFTextParagraph> getParagraphsFromSlide(GroupState state) {
+        return state.pptUtil.getParagraphsFromSlide(state.slide);
+    }
+
+    @Benchmark
+    public XSLFTable setCellText(TableState state) {
+        String suffix = (state.round++ & 1) == 0 ? " even" : " odd";
+        int i = 0;
+        for (XSLFTableRow row : state.table.getRows()) {
+            for (XSLFTableCell cell : row.getCells()) {
+                state.pptUtil.setCellText(cell, "cell " + i++ + suffix);
+            }
+        }
+        return state.table;
+    }
+
+    @Benchmark
+    public XSLFTable setCellTextStyle(TableState state) {
+        for (XSLFTableRow row : state.table.getRows()) {
+            for (XSLFTableCell cell : row.getCells()) {
+                state.pptUtil.setCellTextStyle(cell, state.textStyle);
+            }
+        }
+        return state.table;
+    }
+}
@@ -0,0 +1,263 @@
+package com.livekeys.officetool.benchmark;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xddf.usermodel.chart.AxisPosition;
+import org.apache.poi.xddf.usermodel.chart.BarDirection;
+import org.apache.poi.xddf.usermodel.chart.ChartTypes;
+import org.apache.poi.xddf.usermodel.chart.XDDFBarChartData;
+import org.apache.poi.xddf.usermodel.chart.XDDFCategoryAxis;
+import org.apache.poi.xddf.usermodel.chart.XDDFChartData;
+import org.apache.poi.xddf.usermodel.chart.XDDFDataSource;
+import org.apache.poi.xddf.usermodel.chart.XDDFDataSourcesFactory;
+import org.apache.poi.xddf.usermodel.chart.XDDFNumericalDataSource;
+import org.apache.poi.xddf.usermodel.chart.XDDFValueAxis;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFChart;
+import org.apache.poi.xslf.usermodel.XSLFGroupShape;
+import org.apache.poi.xslf.usermodel.XSLFShapeContainer;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 生成性能测试用的模板，所有模板都在内存中生成，不依赖外部文件
+ */
+public final class TemplateFactory {
+
+    private TemplateFactory() {
+    }
+
+    /**
+     * copies 张幻灯片，每张一个文本框，文本框的第一个段落中有 tagCount 个标签，
+     * splitTags 为 true 时每隔一个标签拆分到三个 run 中，模拟 PowerPoint 编辑后的效果
+     * @param tagCount
+     * @param copies
+     * @param splitTags
+     * @return
+     */
+    public static XMLSlideShow tagDeck(int tagCount, int copies, boolean splitTags) {
+        XMLSlideShow pptx = new XMLSlideShow();
+        for (int c = 0; c < copies; c++) {
+            XSLFTextBox textBox = pptx.createSlide().createTextBox();
+            textBox.setAnchor(new Rectangle2D.Double(10, 10, 600, 400));
+            XSLFTextParagraph paragraph = textBox.getTextParagraphs().get(0);   // createTextBox 已经创建了一个空段落
+            for (int i = 0; i < tagCount; i++) {
+                if (!splitTags || i % 2 == 0) {
+                    paragraph.addNewTextRun().setText("text " + i + " {tag" + i + "} ");
+                } else {
+                    paragraph.addNewTextRun().setText("text " + i + " {ta");
+                    paragraph.addNewTextRun().setText("g" + i);
+                    paragraph.addNewTextRun().setText("} ");
+                }
+            }
+        }
+        return pptx;
+    }
+
+    /**
+     * tagDeck 中标签对应的参数
+     * @param tagCount
+     * @return
+     */
+    public static Map<String, Object> tagParams(int tagCount) {
+        Map<String, Object> paramMap = new HashMap<String, Object>();
+        for (int i = 0; i < tagCount; i++) {
+            paramMap.put("tag" + i, "value" + i);
+        }
+        return paramMap;
+    }
+
+    /**
+     * 组合嵌套 depth 层，每层有 shapesPerLevel 个文本框
+     * @param depth
+     * @param shapesPerLevel
+     * @return
+     */
+    public static XMLSlideShow groupedDeck(int depth, int shapesPerLevel) {
+        XMLSlideShow pptx = new XMLSlideShow();
+        XSLFShapeContainer container = pptx.createSlide();
+        for (int level = 0; level < depth; level++) {
+            for (int i = 0; i < shapesPerLevel; i++) {
+                XSLFTextBox textBox = container.createTextBox();
+                textBox.setAnchor(new Rectangle2D.Double(10 + i, 10 + level, 100, 20));
+                textBox.setText("level " + level + " shape " + i);
+            }
+            XSLFGroupShape group = container.createGroup();
+            group.setAnchor(new Rectangle2D.Double(0, 0, 600, 400));
+            container = group;
+        }
+        return pptx;
+    }
+
+    /**
+     * 一张 rows 行 cols 列的表格
+     * @param rows
+     * @param cols
+     * @return
+     */
+    public static XMLSlideShow tableDeck(int rows, int cols) {
+        XMLSlideShow pptx = new XMLSlideShow();
+        XSLFTable table = pptx.createSlide().createTable(rows, cols);
+        table.setAnchor(new Rectangle2D.Double(10, 10, 600, 400));
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                table.getCell(i, j).setText("r" + i + "c" + j);
+            }
+        }
+        return pptx;
+    }
+
+    /**
+     * 一个柱状图，一个系列，points 个数据点，带内嵌 excel
+     * @param points
+     * @return
+     */
+    public static XMLSlideShow chartDeck(int points) {
+        XMLSlideShow pptx = new XMLSlideShow();
+        addBarChart(pptx, pptx.createSlide(), points, new Rectangle2D.Double(10, 10, 600, 400));
+        return pptx;
+    }
+
+    /**
+     * 由文本、组合、表格、图表组成的 ppt，用于测试读写，每张幻灯片一个 12 个数据点的柱状图
+     * @param slides
+     * @return
+     */
+    public static XMLSlideShow mixedDeck(int slides) {
+        XMLSlideShow pptx = new XMLSlideShow();
+        for (int s = 0; s < slides; s++) {
+            XSLFSlide slide = pptx.createSlide();
+            XSLFTextBox textBox = slide.createTextBox();
+            textBox.setAnchor(new Rectangle2D.Double(10, 10, 600, 50));
+            textBox.setText("slide " + s + " {title}");
+
+            XSLFGroupShape group = slide.createGroup();
+            group.createTextBox().setText("grouped {name}");
+
+            XSLFTable table = slide.createTable(10, 5);
+            table.setAnchor(new Rectangle2D.Double(10, 100, 600, 200));
+            for (int i = 0; i < 10; i++) {
+                for (int j = 0; j < 5; j++) {
+                    table.getCell(i, j).setText("r" + i + "c" + j);
+                }
+            }
+
+            addBarChart(pptx, slide, 12, new Rectangle2D.Double(10, 320, 600, 200));
+        }
+        return pptx;
+    }
+
+    // 在幻灯片上添加一个柱状图，一个系列，points 个数据点，带内嵌 excel
+    private static void addBarChart(XMLSlideShow pptx, XSLFSlide slide, int points, Rectangle2D anchor) {
+        XSLFChart chart = pptx.createChart(slide);
+        slide.addChart(chart, anchor);
+
+        String[] cats = new String[points];
+        Double[] values = new Double[points];
+        for (int i = 0; i < points; i++) {
+            cats[i] = "c" + i;
+            values[i] = (double) i;
+        }
+        XDDFDataSource<String> catSource = XDDFDataSourcesFactory.fromArray(cats,
+                chart.formatRange(new CellRangeAddress(1, points, 0, 0)), 0);
+        XDDFNumericalDataSource<Double> valSource = XDDFDataSourcesFactory.fromArray(values,
+                chart.formatRange(new CellRangeAddress(1, points, 1, 1)), 1);
+
+        XDDFCategoryAxis bottom = chart.createCategoryAxis(AxisPosition.BOTTOM);
+        XDDFValueAxis left = chart.createValueAxis(AxisPosition.LEFT);
+        XDDFChartData data = chart.createData(ChartTypes.BAR, bottom, left);
+        ((XDDFBarChartData) data).setBarDirection(BarDirection.COL);
+        data.addSeries(catSource, valSource).setTitle("series", chart.setSheetTitle("series", 1));
+        chart.plot(data);
+    }
+
+    /**
+     * rows 行 cols 列的 excel，奇数列为数字，偶数列为文本
+     * @param rows
+     * @param cols
+     * @return
+     */
+    public static XSSFWorkbook workbook(int rows, int cols) {
+        XSSFWorkbook excel = new XSSFWorkbook();
+        XSSFSheet sheet = excel.createSheet("data");
+        for (int i = 0; i < rows; i++) {
+            XSSFRow row = sheet.createRow(i);
+            for (int j = 0; j < cols; j++) {
+                if (j % 2 == 0) {
+                    row.createCell(j).setCellValue("r" + i + "c" + j);
+                } else {
+                    row.createCell(j).setCellValue(i * j);
+                }
+            }
+        }
+        return excel;
+    }
+
+    /**
+     * 把 ppt 序列化成字节数组
+     * @param pptx
+     * @return
+     * @throws IOException
+     */
+    public static byte[] toBytes(XMLSlideShow pptx) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pptx.write(out);
+        pptx.close();
+        return out.toByteArray();
+    }
+
+    /**
+     * 把 ppt 写入临时文件，JVM 退出时删除
+     * @param pptx
+     * @return
+     * @throws IOException
+     */
+    public static File toTempFile(XMLSlideShow pptx) throws IOException {
+        File file = createTempFile(".pptx");
+        try (OutputStream out = new FileOutputStream(file)) {
+            pptx.write(out);
+        }
+        pptx.close();
+        return file;
+    }
+
+    /**
+     * 把 excel 写入临时文件，JVM 退出时删除
+     * @param excel
+     * @return
+     * @throws IOException
+     */
+    public static File toTempFile(XSSFWorkbook excel) throws IOException {
+        File file = createTempFile(".xlsx");
+        try (OutputStream out = new FileOutputStream(file)) {
+            excel.write(out);
+        }
+        excel.close();
+        return file;
+    }
+
+    /**
+     * 创建临时文件，JVM 退出时删除
+     * @param suffix
+     * @return
+     * @throws IOException
+     */
+    public static File createTempFile(String suffix) throws IOException {
+        File file = File.createTempFile("officetool-bench", suffix);
+        file.deleteOnExit();
+        return file;
+    }
+}
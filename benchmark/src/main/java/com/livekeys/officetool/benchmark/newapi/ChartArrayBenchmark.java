@@ -0,0 +1,58 @@
+package com.livekeys.officetool.benchmark.newapi;
+
+import com.livekeys.officetool.benchmark.TemplateFactory;
+import com.livekeys.officetool.pptutil.PPTUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTBarChart;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图表缓存 double[] 版本接口的性能测试，与 ChartBenchmark.updateDataCacheStrings 对比
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChartArrayBenchmark {
+
+    @Param({"10000"})
+    public int points;
+
+    private PPTUtil pptUtil;
+    private CTBarChart barChart;
+    private double[][] values;
+    private int round;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pptUtil = new PPTUtil(TemplateFactory.chartDeck(points));
+        barChart = pptUtil.getBarChartFromChart(pptUtil.getCharts().get(0)).get(0);
+
+        values = new double[2][points];
+        for (int k = 0; k < 2; k++) {
+            for (int i = 0; i < points; i++) {
+                values[k][i] = i * (k + 1.5);
+            }
+        }
+    }
+
+    @Benchmark
+    public CTBarChart updateDataCacheDoubles() {
+        pptUtil.updateBarDataCache(barChart, 0, values[round++ & 1], null);
+        return barChart;
+    }
+}
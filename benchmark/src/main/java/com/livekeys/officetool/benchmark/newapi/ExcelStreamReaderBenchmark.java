@@ -0,0 +1,59 @@
+package com.livekeys.officetool.benchmark.newapi;
+
+import com.livekeys.officetool.benchmark.TemplateFactory;
+import com.livekeys.officetool.excelutil.ExcelStreamReader;
+import com.livekeys.officetool.excelutil.RowHandler;
+import com.livekeys.officetool.excelutil.RowView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式读取 excel 的性能测试，与 ExcelUtilBenchmark.read 对比
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Thread)
+public class ExcelStreamReaderBenchmark {
+
+    @Param({"1000", "20000"})
+    public int rows;
+
+    private File template;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        template = TemplateFactory.toTempFile(TemplateFactory.workbook(rows, 10));
+    }
+
+    @Benchmark
+    public int streamRead() throws IOException {
+        final int[] cells = new int[1];
+        try (ExcelStreamReader reader = new ExcelStreamReader(template.getPath())) {
+            reader.readRows(reader.getSheet(0), new RowHandler() {
+                @Override
+                public boolean handleRow(RowView row) {
+                    cells[0] += row.getPhysicalNumberOfCells();
+                    return true;
+                }
+            });
+        }
+        return cells[0];
+    }
+}
@@ -0,0 +1,99 @@
+package com.livekeys.officetool.benchmark.newapi;
+
+import com.livekeys.officetool.benchmark.TemplateFactory;
+import com.livekeys.officetool.pptutil.CompiledTextStyle;
+import com.livekeys.officetool.pptutil.PPTUtil;
+import com.livekeys.officetool.pptutil.entity.ParagraphTextStyle;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTableCell;
+import org.apache.poi.xslf.usermodel.XSLFTableRow;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PPTUtil 新增接口的性能测试：整个 ppt 的段落遍历和编译后的文本样式
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PPTUtilApiBenchmark {
+
+    /**
+     * 由文本、组合、表格、图表组成的 ppt
+     */
+    @State(Scope.Thread)
+    public static class DeckState {
+        @Param({"10", "50"})
+        public int slides;
+
+        public PPTUtil pptUtil;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            pptUtil = new PPTUtil(TemplateFactory.mixedDeck(slides));
+        }
+    }
+
+    /**
+     * rows 行 10 列的表格和编译后的文本样式
+     */
+    @State(Scope.Thread)
+    public static class TableState {
+        @Param({"50", "500"})
+        public int rows;
+
+        public PPTUtil pptUtil;
+        public XSLFTable table;
+        public ParagraphTextStyle textStyle;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            pptUtil = new PPTUtil(TemplateFactory.tableDeck(rows, 10));
+            table = pptUtil.getAllTableFromSlide(pptUtil.getSlides().get(0)).get(0);
+            textStyle = new ParagraphTextStyle();
+            textStyle.setBold(true);
+            textStyle.setFontFamily("微软雅黑");
+            textStyle.setWesternFontFamily("Arial");
+            textStyle.setFontSize("12");
+            textStyle.setColorHex("#333333");
+        }
+    }
+
+    @Benchmark
+    public int iterateDeckParagraphs(DeckState state) {
+        int count = 0;
+        for (XSLFTextParagraph paragraph : state.pptUtil.getDeckParagraphs()) {
+            count += paragraph.getTextRuns().size();
+        }
+        return count;
+    }
+
+    /**
+     * 每次调用编译一次样式，与 PPTUtilBenchmark.setCellTextStyle 对比
+     */
+    @Benchmark
+    public XSLFTable setCellTextCompiledStyle(TableState state) {
+        CompiledTextStyle style = state.pptUtil.compileTextStyle(state.textStyle);
+        for (XSLFTableRow row : state.table.getRows()) {
+            for (XSLFTableCell cell : row.getCells()) {
+                state.pptUtil.setCellTextStyle(cell, style);
+            }
+        }
+        return state.table;
+    }
+}
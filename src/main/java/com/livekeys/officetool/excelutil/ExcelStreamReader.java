@@ -0,0 +1,240 @@
+package com.livekeys.officetool.excelutil;
+
+import org.apache.poi.ooxml.util.SAXHelper;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 流式读取 excel，基于 XSSF 的 SAX 事件模型
+ * 不会把整个 sheet 加载到内存中，一次只保留一行的数据，内存占用与 sheet 的大小无关（共享字符串表除外）
+ */
+public class ExcelStreamReader implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExcelStreamReader.class);
+
+    private final OPCPackage pkg;
+    private final ReadOnlySharedStringsTable sharedStrings;     // 共享字符串表
+    private final StylesTable styles;   // 样式表，用来格式化数字和日期
+    private final List<StreamSheet> sheets;
+
+    public ExcelStreamReader(String filePath) throws IOException {
+        try {
+            this.pkg = OPCPackage.open(new File(filePath), PackageAccess.READ);
+        } catch (OpenXML4JException e) {
+            throw new IOException("无法打开文件：" + filePath, e);
+        }
+
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            this.sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            this.styles = reader.getStylesTable();
+            this.sheets = Collections.unmodifiableList(readSheets(reader));
+        } catch (OpenXML4JException | SAXException | RuntimeException e) {
+            pkg.revert();
+            throw new IOException("无法解析文件：" + filePath, e);
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("已打开文件：" + filePath);
+        }
+    }
+
+    /**
+     * 获取所有 sheet
+     * @return
+     */
+    public List<StreamSheet> getSheets() {
+        return sheets;
+    }
+
+    /**
+     * 根据索引获取 sheet
+     * @param sheetIndex
+     * @return
+     */
+    public StreamSheet getSheet(int sheetIndex) {
+        return sheets.get(sheetIndex);
+    }
+
+    /**
+     * 根据 sheet name 获取 sheet，不存在时返回 null
+     * @param name
+     * @return
+     */
+    public StreamSheet getSheet(String name) {
+        for (StreamSheet sheet : sheets) {
+            if (sheet.getName().equals(name)) {
+                return sheet;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 逐行读取 sheet
+     * @param sheet
+     * @param handler   handler 返回 false 时停止读取
+     * @throws IOException
+     */
+    public void readRows(StreamSheet sheet, RowHandler handler) throws IOException {
+        RowCollector collector = new RowCollector(handler);
+        XSSFSheetXMLHandler sheetHandler = new XSSFSheetXMLHandler(styles, null, sharedStrings, collector,
+                new DataFormatter(), false);
+        parse(sheet, sheetHandler);
+    }
+
+    /**
+     * 获取单元格的文本，读到该行为止，不存在时返回 null
+     * @param sheet
+     * @param row
+     * @param col
+     * @return
+     * @throws IOException
+     */
+    public String getCell(StreamSheet sheet, final int row, final int col) throws IOException {
+        final String[] value = new String[1];
+        readRows(sheet, new RowHandler() {
+            @Override
+            public boolean handleRow(RowView rowView) {
+                if (rowView.getRowNum() == row) {
+                    value[0] = rowView.getCell(col);
+                }
+                return rowView.getRowNum() < row;
+            }
+        });
+        return value[0];
+    }
+
+    /**
+     * 获取 sheet 的实际行数，只统计 row 元素，不解析单元格
+     * @param sheet
+     * @return
+     * @throws IOException
+     */
+    public int getPhysicalNumberOfRows(StreamSheet sheet) throws IOException {
+        RowCounter counter = new RowCounter();
+        parse(sheet, counter);
+        return counter.rows;
+    }
+
+    /**
+     * 关闭文件
+     */
+    @Override
+    public void close() {
+        pkg.revert();
+    }
+
+    // 读取 workbook 中的 sheet 列表
+    private List<StreamSheet> readSheets(XSSFReader reader) throws IOException, OpenXML4JException {
+        List<StreamSheet> sheets = new ArrayList<StreamSheet>();
+        XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+        while (iterator.hasNext()) {
+            iterator.next().close();    // 只需要 sheet 的位置，不读取内容
+            sheets.add(new StreamSheet(sheets.size(), iterator.getSheetName(), iterator.getSheetPart()));
+        }
+        return sheets;
+    }
+
+    // 用 SAX 解析 sheet
+    private void parse(StreamSheet sheet, ContentHandler contentHandler) throws IOException {
+        try (InputStream in = sheet.getPart().getInputStream()) {
+            XMLReader xmlReader = SAXHelper.newXMLReader();
+            xmlReader.setContentHandler(contentHandler);
+            xmlReader.parse(new InputSource(in));
+        } catch (StopReadingException e) {
+            // handler 要求停止读取
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new IOException("解析 sheet 失败：" + sheet.getName(), e);
+        }
+    }
+
+    // 根据单元格引用（如 AB12）计算列号
+    private static int columnIndex(String cellRef) {
+        int col = 0;
+        for (int i = 0; i < cellRef.length(); i++) {
+            char c = cellRef.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            col = col * 26 + (c - 'A' + 1);
+        }
+        return col - 1;
+    }
+
+    // 收集一行的单元格，行结束时交给 handler
+    private static class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final RowHandler handler;
+        private final RowView row = new RowView();
+        private int lastCol;
+
+        private RowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            row.reset(rowNum);
+            lastCol = -1;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!handler.handleRow(row)) {
+                throw new StopReadingException();
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = cellReference == null ? lastCol + 1 : columnIndex(cellReference);
+            row.setCell(col, formattedValue);
+            lastCol = col;
+        }
+    }
+
+    // 只统计行数
+    private static class RowCounter extends DefaultHandler {
+        private int rows;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if ("row".equals(localName)) {
+                rows++;
+            }
+        }
+    }
+
+    // 用来中断 SAX 解析
+    private static class StopReadingException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private StopReadingException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.livekeys.officetool.excelutil;
+
+import com.livekeys.officetool.io.OfficeFiles;
+import org.apache.poi.xssf.streaming.SXSSFCell;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Paths;
+
+/**
+ * 流式写入 excel，基于 SXSSFWorkbook
+ * 只在内存中保留最近的 rowAccessWindowSize 行，更早的行会被写入压缩的临时文件，
+ * 适合导出百万行级别的数据
+ */
+public class ExcelStreamWriter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExcelStreamWriter.class);
+
+    private final SXSSFWorkbook excel;
+
+    private SXSSFSheet sheet;   // 当前写入的 sheet
+    private SXSSFRow row;   // 当前写入的行
+    private int rowNum;     // 下一行的行号
+    private int colNum;     // 当前行下一个单元格的列号
+
+    public ExcelStreamWriter() {
+        this(SXSSFWorkbook.DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param rowAccessWindowSize   内存中保留的行数
+     */
+    public ExcelStreamWriter(int rowAccessWindowSize) {
+        this.excel = new SXSSFWorkbook(rowAccessWindowSize);
+        this.excel.setCompressTempFiles(true);  // 临时文件使用 gzip 压缩
+    }
+
+    public SXSSFWorkbook getExcel() {
+        return this.excel;
+    }
+
+    /**
+     * 创建一个新的 sheet，之后的行都写入这个 sheet
+     * @param name
+     * @return
+     */
+    public SXSSFSheet createSheet(String name) {
+        this.sheet = name == null ? excel.createSheet() : excel.createSheet(name);
+        this.row = null;
+        this.rowNum = 0;
+        return this.sheet;
+    }
+
+    /**
+     * 在当前 sheet 末尾开始新的一行，没有 sheet 时自动创建
+     * @return
+     */
+    public ExcelStreamWriter startRow() {
+        if (sheet == null) {
+            createSheet(null);
+        }
+        row = sheet.createRow(rowNum++);
+        colNum = 0;
+        return this;
+    }
+
+    /**
+     * 在当前行追加一个文本单元格，null 时只占位
+     * @param value
+     * @return
+     */
+    public ExcelStreamWriter cell(String value) {
+        if (value == null) {
+            return skipCell();
+        }
+        nextCell().setCellValue(value);
+        return this;
+    }
+
+    /**
+     * 在当前行追加一个数值单元格
+     * @param value
+     * @return
+     */
+    public ExcelStreamWriter cell(double value) {
+        nextCell().setCellValue(value);
+        return this;
+    }
+
+    /**
+     * 在当前行追加一个整数单元格
+     * @param value
+     * @return
+     */
+    public ExcelStreamWriter cell(long value) {
+        nextCell().setCellValue((double) value);
+        return this;
+    }
+
+    /**
+     * 在当前行追加一个布尔单元格
+     * @param value
+     * @return
+     */
+    public ExcelStreamWriter cell(boolean value) {
+        nextCell().setCellValue(value);
+        return this;
+    }
+
+    /**
+     * 跳过一个单元格
+     * @return
+     */
+    public ExcelStreamWriter skipCell() {
+        colNum++;
+        return this;
+    }
+
+    /**
+     * 追加一行文本
+     * @param values
+     */
+    public void appendRow(String... values) {
+        startRow();
+        for (String value : values) {
+            cell(value);
+        }
+    }
+
+    /**
+     * 追加一行数值
+     * @param values
+     */
+    public void appendRow(double... values) {
+        startRow();
+        for (double value : values) {
+            cell(value);
+        }
+    }
+
+    /**
+     * 追加一行整数
+     * @param values
+     */
+    public void appendRow(long... values) {
+        startRow();
+        for (long value : values) {
+            cell(value);
+        }
+    }
+
+    /**
+     * 当前 sheet 已写入的行数
+     * @return
+     */
+    public int getRowCount() {
+        return rowNum;
+    }
+
+    /**
+     * 写入 excel
+     * @param exportPath
+     * @throws IOException
+     */
+    public void writeExcel(String exportPath) throws IOException {
+        OfficeFiles.writeAtomically(Paths.get(exportPath), new OfficeFiles.WriteAction() {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                writeExcel(out);
+            }
+        });
+        if (logger.isDebugEnabled()) {
+            logger.debug("已写入文件：" + exportPath);
+        }
+    }
+
+    /**
+     * 写入 excel 到输出流，不会关闭输出流
+     * @param out
+     * @throws IOException
+     */
+    public void writeExcel(OutputStream out) throws IOException {
+        excel.write(out);
+    }
+
+    /**
+     * 删除临时文件
+     */
+    @Override
+    public void close() throws IOException {
+        excel.dispose();
+        excel.close();
+    }
+
+    // 当前行的下一个单元格
+    private SXSSFCell nextCell() {
+        if (row == null) {
+            throw new IllegalStateException("startRow() must be called before adding cells");
+        }
+        return row.createCell(colNum++);
+    }
+}
@@ -1,5 +1,13 @@
 package com.livekeys.officetool.excelutil;
 
+import com.livekeys.officetool.io.OfficeFiles;
+import com.livekeys.officetool.metrics.Counter;
+import com.livekeys.officetool.metrics.Metrics;
+import com.livekeys.officetool.metrics.Phase;
+import com.livekeys.officetool.metrics.RenderMetrics;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.xssf.usermodel.XSSFCell;
 import org.apache.poi.xssf.usermodel.XSSFRow;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
@@ -7,29 +15,120 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
-public class ExcelUtil {
+public class ExcelUtil implements Closeable {
 
     private static final Logger logger = LoggerFactory.getLogger(ExcelUtil.class);
 
     private XSSFWorkbook excel;
 
+    private RenderMetrics metrics = Metrics.getDefault();   // 读写的计时和计数，默认不记录
+
     public ExcelUtil(String filePath) {
         this.readExcel(filePath);
     }
 
+    public ExcelUtil(XSSFWorkbook excel) {
+        this.excel = excel;
+    }
+
+    public RenderMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 设置计时和计数的记录方式，默认使用 Metrics.getDefault()，为 null 时不记录
+     * @param metrics
+     */
+    public void setMetrics(RenderMetrics metrics) {
+        this.metrics = metrics == null ? Metrics.NOOP : metrics;
+    }
+
+    /**
+     * 读取 excel 文件，整个文件读入内存，读取后不占用文件
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public static ExcelUtil load(Path path) throws IOException {
+        ExcelUtil excelUtil = load(OfficeFiles.newInputStream(path));
+        if (logger.isDebugEnabled()) {
+            logger.debug("已读取文件：" + path);
+        }
+        return excelUtil;
+    }
+
+    /**
+     * 从输入流读取 excel，读取后输入流会被关闭
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static ExcelUtil load(InputStream in) throws IOException {
+        RenderMetrics metrics = Metrics.getDefault();
+        long start = Metrics.startTimer(metrics);
+        try (InputStream input = in) {
+            ExcelUtil excelUtil = new ExcelUtil(new XSSFWorkbook(input));
+            Metrics.stopTimer(metrics, Phase.LOAD, start);
+            return excelUtil;
+        }
+    }
+
+    /**
+     * 从通道读取 excel，读取后通道会被关闭
+     * @param channel
+     * @return
+     * @throws IOException
+     */
+    public static ExcelUtil load(SeekableByteChannel channel) throws IOException {
+        return load(OfficeFiles.newInputStream(channel));
+    }
+
+    /**
+     * 以随机访问的方式打开 excel 文件，不把整个文件读入内存
+     * 打开期间会占用文件，用完后需要调用 close；readOnly 为 true 时不能再写出 excel
+     * @param file
+     * @param readOnly
+     * @return
+     * @throws IOException
+     */
+    public static ExcelUtil open(File file, boolean readOnly) throws IOException {
+        RenderMetrics metrics = Metrics.getDefault();
+        long start = Metrics.startTimer(metrics);
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(file, readOnly ? PackageAccess.READ : PackageAccess.READ_WRITE);
+        } catch (InvalidFormatException e) {
+            throw new IOException("无法打开文件：" + file, e);
+        }
+        try {
+            ExcelUtil excelUtil = new ExcelUtil(new XSSFWorkbook(pkg));
+            Metrics.stopTimer(metrics, Phase.LOAD, start);
+            return excelUtil;
+        } catch (RuntimeException e) {
+            pkg.revert();
+            throw new IOException("无法解析文件：" + file, e);
+        }
+    }
+
     public XSSFWorkbook getExcel() {
         return this.excel;
     }
 
     // 读取 excel
     private XSSFWorkbook readExcel(String filePath) {
-        try {
-            this.excel = new XSSFWorkbook(new FileInputStream(new File(filePath)));
+        long start = Metrics.startTimer(metrics);
+        try (InputStream in = OfficeFiles.newInputStream(Paths.get(filePath))) {
+            this.excel = new XSSFWorkbook(in);
+            Metrics.stopTimer(metrics, Phase.LOAD, start);
             return this.excel;
         } catch (IOException e) {
             e.printStackTrace();
@@ -43,16 +142,73 @@ public class ExcelUtil {
      */
     public void writeExcel(String exportPath) {
         try {
-            File file = new File(exportPath);
-            if (file.exists()) {
-                file.delete();
-            }
-            this.excel.write(new FileOutputStream(new File(exportPath)));
+            this.writeExcel(Paths.get(exportPath));
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * 写入 excel 文件，先写入同目录下的临时文件，完成后替换目标文件
+     * @param exportPath
+     * @throws IOException
+     */
+    public void writeExcel(Path exportPath) throws IOException {
+        OfficeFiles.writeAtomically(exportPath, new OfficeFiles.WriteAction() {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                writeWorkbook(out);
+            }
+        });
+        if (logger.isDebugEnabled()) {
+            logger.debug("已写入文件：" + exportPath);
+        }
+    }
+
+    /**
+     * 写入 excel 到输出流，不会关闭输出流
+     * @param out
+     * @throws IOException
+     */
+    public void writeExcel(OutputStream out) throws IOException {
+        this.writeWorkbook(out);
+    }
+
+    /**
+     * 写入 excel 到通道，不会关闭通道
+     * @param channel
+     * @throws IOException
+     */
+    public void writeExcel(SeekableByteChannel channel) throws IOException {
+        OfficeFiles.write(channel, new OfficeFiles.WriteAction() {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                writeWorkbook(out);
+            }
+        });
+    }
+
+    // 写出 excel，开启记录时统计耗时和字节数
+    private void writeWorkbook(OutputStream out) throws IOException {
+        if (!metrics.isEnabled()) {
+            excel.write(out);
+            return;
+        }
+        long start = Metrics.startTimer(metrics);
+        Metrics.CountingOutputStream counting = new Metrics.CountingOutputStream(out);
+        excel.write(counting);
+        Metrics.increment(metrics, Counter.BYTES_WRITTEN, counting.getCount());
+        Metrics.stopTimer(metrics, Phase.WRITE, start);
+    }
+
+    /**
+     * 释放 excel，不会把修改写回读取的文件
+     */
+    @Override
+    public void close() {
+        excel.getPackage().revert();
+    }
+
     /**
      * 根据索引获取 sheet
      * @param sheetIndex
@@ -0,0 +1,14 @@
+package com.livekeys.officetool.excelutil;
+
+/**
+ * 流式读取 excel 时每一行的回调
+ */
+public interface RowHandler {
+
+    /**
+     * 处理一行数据，row 对象会被复用，需要保留数据时请复制出来
+     * @param row
+     * @return 返回 false 时停止读取后面的行
+     */
+    boolean handleRow(RowView row);
+}
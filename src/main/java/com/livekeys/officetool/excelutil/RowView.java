@@ -0,0 +1,76 @@
+package com.livekeys.officetool.excelutil;
+
+import java.util.Arrays;
+
+/**
+ * 流式读取 excel 时的一行数据，只保存单元格格式化之后的文本
+ * 同一个 sheet 的读取过程中会复用同一个对象
+ */
+public class RowView {
+
+    private int rowNum;     // 行号，从 0 开始
+    private String[] cells = new String[16];    // 按列号存放的单元格文本，没有的单元格为 null
+    private int lastCellNum;    // 最后一个单元格的列号 + 1
+    private int physicalNumberOfCells;  // 实际存在的单元格数
+
+    /**
+     * 获取行号，从 0 开始
+     * @return
+     */
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    /**
+     * 获取某列单元格的文本，单元格不存在时返回 null
+     * @param col
+     * @return
+     */
+    public String getCell(int col) {
+        return col >= 0 && col < lastCellNum ? cells[col] : null;
+    }
+
+    /**
+     * 获取最后一个单元格的列号 + 1
+     * @return
+     */
+    public int getLastCellNum() {
+        return lastCellNum;
+    }
+
+    /**
+     * 获取实际存在的单元格数
+     * @return
+     */
+    public int getPhysicalNumberOfCells() {
+        return physicalNumberOfCells;
+    }
+
+    /**
+     * 复制出该行的单元格文本
+     * @return
+     */
+    public String[] toArray() {
+        return Arrays.copyOf(cells, lastCellNum);
+    }
+
+    // 开始新的一行
+    void reset(int rowNum) {
+        Arrays.fill(cells, 0, lastCellNum, null);
+        this.rowNum = rowNum;
+        this.lastCellNum = 0;
+        this.physicalNumberOfCells = 0;
+    }
+
+    // 设置单元格文本
+    void setCell(int col, String value) {
+        if (col >= cells.length) {
+            cells = Arrays.copyOf(cells, Math.max(col + 1, cells.length * 2));
+        }
+        cells[col] = value;
+        if (col >= lastCellNum) {
+            lastCellNum = col + 1;
+        }
+        physicalNumberOfCells++;
+    }
+}
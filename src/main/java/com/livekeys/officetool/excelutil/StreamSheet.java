@@ -0,0 +1,31 @@
+package com.livekeys.officetool.excelutil;
+
+import org.apache.poi.openxml4j.opc.PackagePart;
+
+/**
+ * 流式读取时的 sheet，只记录 sheet 的位置，不加载内容
+ */
+public class StreamSheet {
+
+    private final int index;    // sheet 索引
+    private final String name;  // sheet 名称
+    private final PackagePart part;     // sheet 所在的 xml 部件
+
+    StreamSheet(int index, String name, PackagePart part) {
+        this.index = index;
+        this.name = name;
+        this.part = part;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    PackagePart getPart() {
+        return part;
+    }
+}
@@ -0,0 +1,97 @@
+package com.livekeys.officetool.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ppt、excel 文件读写的公共方法
+ *
+ * 写文件时先写入同一目录下的临时文件，写完后再移动到目标位置，读取方不会读到写了一半的文件。
+ */
+public final class OfficeFiles {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private OfficeFiles() {
+    }
+
+    /**
+     * 写入内容到输出流
+     */
+    public interface WriteAction {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * 打开带缓冲的文件输入流
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public static InputStream newInputStream(Path path) throws IOException {
+        return new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+    }
+
+    /**
+     * 把通道包装成带缓冲的输入流，关闭输入流时会关闭通道
+     * @param channel
+     * @return
+     */
+    public static InputStream newInputStream(ReadableByteChannel channel) {
+        return new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+    }
+
+    /**
+     * 通过带缓冲的输出流写入通道，写完后刷新缓冲，不会关闭通道
+     * @param channel
+     * @param action
+     * @throws IOException
+     */
+    public static void write(WritableByteChannel channel, WriteAction action) throws IOException {
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        action.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * 先写入目标目录下的临时文件，成功后替换目标文件；写入失败时删除临时文件，目标文件不变
+     * @param target
+     * @param action
+     * @throws IOException
+     */
+    public static void writeAtomically(Path target, WriteAction action) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        Path dir = absolute.getParent();
+        // 不使用 Files.createTempFile，它创建的文件只有所有者可读，移动后目标文件的权限会改变
+        Path temp = dir.resolve("." + absolute.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        OutputStream tempOut = Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        boolean moved = false;
+        try {
+            try (OutputStream out = new BufferedOutputStream(tempOut, BUFFER_SIZE)) {
+                action.writeTo(out);
+            }
+            try {
+                Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.livekeys.officetool.metrics;
+
+/**
+ * 渲染过程中累计的计数
+ */
+public enum Counter {
+    TAGS_REPLACED,      // 替换的标签数
+    RUNS_TOUCHED,       // 标签替换时改写的 run 数
+    XML_NODES_CREATED,  // 新建的表格行、图表数据点等 xml 节点数
+    BYTES_WRITTEN       // 写出的字节数
+}
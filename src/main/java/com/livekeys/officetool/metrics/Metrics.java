@@ -0,0 +1,114 @@
+package com.livekeys.officetool.metrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * RenderMetrics 的默认实现和计时的公共方法
+ *
+ * 新建的 PPTUtil、ExcelUtil 使用 getDefault() 返回的实例，可以在启动时通过 setDefault 统一开启，
+ * 也可以只对单个对象调用 setMetrics。
+ */
+public final class Metrics {
+
+    /**
+     * 不做任何记录的实现
+     */
+    public static final RenderMetrics NOOP = new RenderMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void recordTime(Phase phase, long nanos) {
+        }
+
+        @Override
+        public void increment(Counter counter, long delta) {
+        }
+    };
+
+    private static volatile RenderMetrics defaultMetrics = NOOP;
+
+    private Metrics() {
+    }
+
+    public static RenderMetrics getDefault() {
+        return defaultMetrics;
+    }
+
+    /**
+     * 设置新建对象默认使用的 RenderMetrics，为 null 时恢复为 NOOP
+     * @param metrics
+     */
+    public static void setDefault(RenderMetrics metrics) {
+        defaultMetrics = metrics == null ? NOOP : metrics;
+    }
+
+    /**
+     * 开始计时，未开启时返回 0
+     * @param metrics
+     * @return
+     */
+    public static long startTimer(RenderMetrics metrics) {
+        return metrics.isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 结束计时并记录，开始时未开启的不记录
+     * @param metrics
+     * @param phase
+     * @param start startTimer 的返回值
+     */
+    public static void stopTimer(RenderMetrics metrics, Phase phase, long start) {
+        if (start != 0L && metrics.isEnabled()) {
+            metrics.recordTime(phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 累加计数，未开启或 delta 为 0 时不记录
+     * @param metrics
+     * @param counter
+     * @param delta
+     */
+    public static void increment(RenderMetrics metrics, Counter counter, long delta) {
+        if (delta != 0 && metrics.isEnabled()) {
+            metrics.increment(counter, delta);
+        }
+    }
+
+    /**
+     * 统计写入字节数的输出流，不会关闭被包装的输出流
+     */
+    public static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        public CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
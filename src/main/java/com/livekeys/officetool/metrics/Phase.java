@@ -0,0 +1,13 @@
+package com.livekeys.officetool.metrics;
+
+/**
+ * 渲染过程中计时的阶段
+ */
+public enum Phase {
+    LOAD,           // 读取 ppt、excel 文件
+    PARSE,          // 解析模板，如扫描标签位置
+    REPLACE,        // 标签替换
+    TABLE_FILL,     // 表格填充
+    CHART_UPDATE,   // 图表 cat 和数据缓存的更新
+    WRITE           // 写出 ppt、excel 文件
+}
@@ -0,0 +1,30 @@
+package com.livekeys.officetool.metrics;
+
+/**
+ * 渲染过程的计时和计数接口，默认使用 Metrics.NOOP，不做任何记录
+ *
+ * isEnabled 返回 false 时调用方不会取时间、不会统计字节数，也不会调用其余方法。
+ * 同一个实现可能被多个线程同时调用，实现需要是线程安全的。
+ */
+public interface RenderMetrics {
+
+    /**
+     * 是否需要记录
+     * @return
+     */
+    boolean isEnabled();
+
+    /**
+     * 记录一个阶段的一次耗时
+     * @param phase
+     * @param nanos 耗时，单位 纳秒
+     */
+    void recordTime(Phase phase, long nanos);
+
+    /**
+     * 累加计数
+     * @param counter
+     * @param delta
+     */
+    void increment(Counter counter, long delta);
+}
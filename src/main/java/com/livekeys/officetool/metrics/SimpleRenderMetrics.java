@@ -0,0 +1,90 @@
+package com.livekeys.officetool.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在内存中累计各阶段耗时和计数的 RenderMetrics，可以在多个线程之间共用
+ */
+public class SimpleRenderMetrics implements RenderMetrics {
+
+    private final LongAdder[] nanos = newAdders(Phase.values().length);
+    private final LongAdder[] calls = newAdders(Phase.values().length);
+    private final LongAdder[] counters = newAdders(Counter.values().length);
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordTime(Phase phase, long nanos) {
+        this.nanos[phase.ordinal()].add(nanos);
+        this.calls[phase.ordinal()].increment();
+    }
+
+    @Override
+    public void increment(Counter counter, long delta) {
+        counters[counter.ordinal()].add(delta);
+    }
+
+    /**
+     * 获取某个阶段的总耗时，单位 纳秒
+     * @param phase
+     * @return
+     */
+    public long getTotalNanos(Phase phase) {
+        return nanos[phase.ordinal()].sum();
+    }
+
+    /**
+     * 获取某个阶段的记录次数
+     * @param phase
+     * @return
+     */
+    public long getCallCount(Phase phase) {
+        return calls[phase.ordinal()].sum();
+    }
+
+    public long getCount(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * 清空所有记录
+     */
+    public void reset() {
+        for (Phase phase : Phase.values()) {
+            nanos[phase.ordinal()].reset();
+            calls[phase.ordinal()].reset();
+        }
+        for (Counter counter : Counter.values()) {
+            counters[counter.ordinal()].reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("SimpleRenderMetrics{");
+        for (Phase phase : Phase.values()) {
+            builder.append(phase).append('=').append(TimeUnit.NANOSECONDS.toMillis(getTotalNanos(phase)))
+                    .append("ms/").append(getCallCount(phase)).append(", ");
+        }
+        for (Counter counter : Counter.values()) {
+            builder.append(counter).append('=').append(getCount(counter));
+            if (counter.ordinal() < Counter.values().length - 1) {
+                builder.append(", ");
+            }
+        }
+        return builder.append('}').toString();
+    }
+
+    // 创建 size 个计数器
+    private static LongAdder[] newAdders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,190 @@
+package com.livekeys.officetool.pptutil;
+
+import com.livekeys.officetool.pptutil.entity.RenderJob;
+import com.livekeys.officetool.pptutil.entity.RenderResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用同一个模板并行批量生成 ppt
+ * 每个任务都从模板渲染出自己的 XMLSlideShow，任务之间不共享可变状态；
+ * 同时在途的任务数有上限，任务来源产生得再快也不会堆积在内存中
+ */
+public class BatchRenderer implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchRenderer.class);
+
+    /**
+     * 标签替换之后、写入文件之前对每份 ppt 的额外处理，会在工作线程中调用
+     */
+    public interface DeckProcessor {
+        void process(PPTUtil pptUtil, RenderJob job) throws Exception;
+    }
+
+    /**
+     * 每个任务完成（成功或失败）时的回调，会在工作线程中调用
+     */
+    public interface RenderListener {
+        void onResult(RenderResult result);
+    }
+
+    private final PPTTemplate template;
+    private final ExecutorService executor;
+    private final int maxPending;   // 同时在途的最大任务数
+    private volatile DeckProcessor deckProcessor;
+
+    public BatchRenderer(PPTTemplate template) {
+        this(template, Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * @param template
+     * @param threads   工作线程数
+     * @param maxPending    同时在途的最大任务数，达到上限时提交任务会阻塞
+     */
+    public BatchRenderer(PPTTemplate template, int threads, int maxPending) {
+        if (threads < 1 || maxPending < 1) {
+            throw new IllegalArgumentException("threads and maxPending must be positive");
+        }
+        this.template = template;
+        this.maxPending = maxPending;
+        this.executor = Executors.newFixedThreadPool(threads, new RenderThreadFactory());
+    }
+
+    public void setDeckProcessor(DeckProcessor deckProcessor) {
+        this.deckProcessor = deckProcessor;
+    }
+
+    /**
+     * 渲染所有任务，等待全部完成后按任务顺序返回结果
+     * @param jobs
+     * @return
+     * @throws InterruptedException
+     */
+    public List<RenderResult> render(Iterator<RenderJob> jobs) throws InterruptedException {
+        final List<RenderResult> results = Collections.synchronizedList(new ArrayList<RenderResult>());
+        render(jobs, new RenderListener() {
+            @Override
+            public void onResult(RenderResult result) {
+                results.add(result);
+            }
+        });
+
+        List<RenderResult> sorted = new ArrayList<RenderResult>(results);
+        Collections.sort(sorted, new Comparator<RenderResult>() {
+            @Override
+            public int compare(RenderResult a, RenderResult b) {
+                return Integer.compare(a.getIndex(), b.getIndex());
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * 渲染所有任务，每个任务完成时回调 listener，等待全部完成后返回
+     * 适合任务数很多、不希望在内存中保留所有结果的场景
+     * @param jobs
+     * @param listener
+     * @throws InterruptedException
+     */
+    public void render(Iterator<RenderJob> jobs, final RenderListener listener) throws InterruptedException {
+        final Semaphore permits = new Semaphore(maxPending);
+        int index = 0;
+        try {
+            while (jobs.hasNext()) {
+                final RenderJob job = jobs.next();
+                final int jobIndex = index++;
+                permits.acquire();  // 在途任务达到上限时在这里等待
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                listener.onResult(renderJob(jobIndex, job));
+                            } catch (RuntimeException e) {
+                                logger.warn("render listener failed for job " + jobIndex, e);
+                            } finally {
+                                permits.release();
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+        } finally {
+            // 等待所有已提交的任务完成
+            permits.acquireUninterruptibly(maxPending);
+            permits.release(maxPending);
+        }
+    }
+
+    /**
+     * 关闭工作线程，等待正在执行的任务完成
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 渲染并写入一个任务
+    private RenderResult renderJob(int index, RenderJob job) {
+        long start = System.nanoTime();
+        PPTUtil pptUtil = null;
+        try {
+            pptUtil = template.render(job.getParamMap());
+            DeckProcessor processor = this.deckProcessor;
+            if (processor != null) {
+                processor.process(pptUtil, job);
+            }
+            pptUtil.writePPT(Paths.get(job.getExportPath()));
+            return new RenderResult(index, job, null, elapsedMillis(start));
+        } catch (Exception e) {
+            logger.warn("render job " + index + " failed: " + job.getExportPath(), e);
+            return new RenderResult(index, job, e, elapsedMillis(start));
+        } finally {
+            if (pptUtil != null) {
+                pptUtil.getPPTX().getPackage().revert();    // 释放这份 ppt，不回写
+            }
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    // 工作线程命名
+    private static class RenderThreadFactory implements ThreadFactory {
+        private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
+        private final int poolNumber = POOL_NUMBER.getAndIncrement();
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "ppt-render-" + poolNumber + "-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.livekeys.officetool.pptutil;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.util.AreaReference;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xslf.usermodel.XSLFChart;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.xmlbeans.XmlObject;
+import org.openxmlformats.schemas.drawingml.x2006.chart.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 图表数据绑定，同时更新图表的缓存和内嵌的 excel
+ * 先把一个图表所有系列的更新收集起来，apply 时依次更新缓存、写入内嵌 excel 的单元格，
+ * 最后只把内嵌 excel 保存一次，这样在 PowerPoint 中“编辑数据”时图表不会变回模板中的数据
+ */
+public class ChartDataBinding {
+
+    private final PPTUtil pptUtil;
+    private final XSLFChart chart;
+    private final List<PendingUpdate> updates = new ArrayList<PendingUpdate>();
+
+    ChartDataBinding(PPTUtil pptUtil, XSLFChart chart) {
+        this.pptUtil = pptUtil;
+        this.chart = chart;
+    }
+
+    public XSLFChart getChart() {
+        return chart;
+    }
+
+    /**
+     * 更新柱状图的 cat
+     * @param barChart
+     * @param serIndex
+     * @param data
+     * @return
+     */
+    public ChartDataBinding updateBarCat(final CTBarChart barChart, final int serIndex, final List<List<String>> data) {
+        addCat(barChart.getSerArray(serIndex).getCat(), data, new Runnable() {
+            @Override
+            public void run() {
+                pptUtil.updateBarCat(barChart, serIndex, data);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 更新柱状图的数据
+     * @param barChart
+     * @param serIndex
+     * @param data
+     * @return
+     */
+    public ChartDataBinding updateBarData(final CTBarChart barChart, final int serIndex, final List<String> data) {
+        addVal(barChart.getSerArray(serIndex).getVal(), data, new Runnable() {
+            @Override
+            public void run() {
+                pptUtil.updateBarDataCache(barChart, serIndex, data);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 更新折线图的 cat
+     * @param lineChart
+     * @param serIndex
+     * @param data
+     * @return
+     */
+    public ChartDataBinding updateLineCat(final CTLineChart lineChart, final int serIndex, final List<List<String>> data) {
+        addCat(lineChart.getSerArray(serIndex).getCat(), data, new Runnable() {
+            @Override
+            public void run() {
+                pptUtil.updateLineCat(lineChart, serIndex, data);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 更新折线图的数据
+     * @param lineChart
+     * @param serIndex
+     * @param data
+     * @return
+     */
+    public ChartDataBinding updateLineData(final CTLineChart lineChart, final int serIndex, final List<String> data) {
+        addVal(lineChart.getSerArray(serIndex).getVal(), data, new Runnable() {
+            @Override
+            public void run() {
+                pptUtil.updateLineDataCache(lineChart, serIndex, data);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 更新饼图的 cat
+     * @param pieChart
+     * @param serIndex
+     * @param data
+     * @return
+     */
+    public ChartDataBinding updatePieCat(final CTPieChart pieChart, final int serIndex, final List<List<String>> data) {
+        addCat(pieChart.getSerArray(serIndex).getCat(), data, new Runnable() {
+            @Override
+            public void run() {
+                pptUtil.updatePieCat(pieChart, serIndex, data);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 更新饼图的数据
+     * @param pieChart
+     * @param serIndex
+     * @param data
+     * @return
+     */
+    public ChartDataBinding updatePieData(final CTPieChart pieChart, final int serIndex, final List<String> data) {
+        addVal(pieChart.getSerArray(serIndex).getVal(), data, new Runnable() {
+            @Override
+            public void run() {
+                pptUtil.updatePieDataCache(pieChart, serIndex, data);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 更新雷达图的 cat
+     * @param radarChart
+     * @param serIndex
+     * @param data
+     * @return
+     */
+    public ChartDataBinding updateRadarCat(final CTRadarChart radarChart, final int serIndex, final List<List<String>> data) {
+        addCat(radarChart.getSerArray(serIndex).getCat(), data, new Runnable() {
+            @Override
+            public void run() {
+                pptUtil.updateRadarCat(radarChart, serIndex, data);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 更新雷达图的数据
+     * @param radarChart
+     * @param serIndex
+     * @param data
+     * @return
+     */
+    public ChartDataBinding updateRadarData(final CTRadarChart radarChart, final int serIndex, final List<String> data) {
+        addVal(radarChart.getSerArray(serIndex).getVal(), data, new Runnable() {
+            @Override
+            public void run() {
+                pptUtil.updateRadarDataCache(radarChart, serIndex, data);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 执行所有更新：更新缓存、写入内嵌 excel，最后保存一次内嵌 excel
+     * @throws IOException
+     */
+    public void apply() throws IOException {
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        try {
+            XSSFWorkbook workbook = chart.getWorkbook();
+            for (PendingUpdate update : updates) {
+                update.cacheUpdate.run();
+                if (update.ref != null) {
+                    writeToWorkbook(workbook, update);
+                }
+            }
+            chart.saveWorkbook(workbook);
+        } catch (InvalidFormatException e) {
+            throw new IOException("无法读取图表内嵌的 excel", e);
+        }
+        updates.clear();
+    }
+
+    // 记录 cat 的更新
+    private void addCat(CTAxDataSource cat, List<List<String>> data, Runnable cacheUpdate) {
+        XmlObject ref = null;
+        if (cat.isSetNumRef()) {
+            ref = cat.getNumRef();
+        } else if (cat.isSetStrRef()) {
+            ref = cat.getStrRef();
+        } else if (cat.isSetMultiLvlStrRef()) {
+            ref = cat.getMultiLvlStrRef();
+        }
+        // 只有多层 cat 写入多列，单层 cat 与缓存一样只使用第一层
+        List<List<String>> levels = data;
+        if (!cat.isSetMultiLvlStrRef() && data.size() > 1) {
+            levels = Collections.singletonList(data.get(0));
+        }
+        updates.add(new PendingUpdate(ref, cat.isSetNumRef(), levels, cacheUpdate));
+    }
+
+    // 记录数据的更新
+    private void addVal(CTNumDataSource val, List<String> data, Runnable cacheUpdate) {
+        updates.add(new PendingUpdate(val.getNumRef(), true, Collections.singletonList(data), cacheUpdate));
+    }
+
+    // 把数据写入内嵌 excel 中引用的区域，数据个数变化时同时更新引用公式
+    private void writeToWorkbook(XSSFWorkbook workbook, PendingUpdate update) {
+        String formula = getFormula(update.ref);
+        if (formula == null || "".equals(formula) || update.data.isEmpty()) {
+            return;
+        }
+
+        AreaReference area = new AreaReference(formula, SpreadsheetVersion.EXCEL2007);
+        CellReference first = area.getFirstCell();
+        CellReference last = area.getLastCell();
+        String sheetName = first.getSheetName();
+        XSSFSheet sheet = sheetName == null ? workbook.getSheetAt(0) : workbook.getSheet(sheetName);
+        if (sheet == null) {
+            sheet = workbook.createSheet(sheetName);
+        }
+
+        int levels = update.data.size();
+        int count = update.data.get(0).size();
+        // 只有一行多列、且只有一层时按横向排列，其余都按纵向排列（多层 cat 每一层占一列，最外层在最左边）
+        boolean horizontal = levels == 1 && first.getRow() == last.getRow() && last.getCol() > first.getCol();
+        int oldCount = horizontal ? last.getCol() - first.getCol() + 1 : last.getRow() - first.getRow() + 1;
+
+        for (int level = 0; level < levels; level++) {
+            List<String> values = update.data.get(level);
+            int col = first.getCol() + (levels - 1 - level);
+            for (int i = 0; i < Math.max(count, oldCount); i++) {
+                int rowNum = horizontal ? first.getRow() : first.getRow() + i;
+                int colNum = horizontal ? first.getCol() + i : col;
+                String value = i < count && i < values.size() ? values.get(i) : null;
+                setCellValue(sheet, rowNum, colNum, value, update.numeric);
+            }
+        }
+
+        if (count > 0 && count != oldCount) {
+            int lastRow = horizontal ? first.getRow() : first.getRow() + count - 1;
+            int lastCol = horizontal ? first.getCol() + count - 1 : first.getCol() + levels - 1;
+            AreaReference newArea = new AreaReference(
+                    new CellReference(sheetName, first.getRow(), first.getCol(), true, true),
+                    new CellReference(sheetName, lastRow, lastCol, true, true),
+                    SpreadsheetVersion.EXCEL2007);
+            setFormula(update.ref, newArea.formatAsString());
+        }
+    }
+
+    // 设置单元格的值，数值型的引用尽量写成数字，空值时删除单元格
+    private static void setCellValue(XSSFSheet sheet, int rowNum, int colNum, String value, boolean numeric) {
+        XSSFRow row = sheet.getRow(rowNum);
+        if (value == null || "".equals(value)) {
+            if (row != null && row.getCell(colNum) != null) {
+                row.removeCell(row.getCell(colNum));
+            }
+            return;
+        }
+
+        if (row == null) {
+            row = sheet.createRow(rowNum);
+        }
+        XSSFCell cell = row.getCell(colNum);
+        if (cell == null) {
+            cell = row.createCell(colNum);
+        }
+        if (numeric) {
+            try {
+                cell.setCellValue(Double.parseDouble(value));
+                return;
+            } catch (NumberFormatException e) {
+                // 不是数字，按文本写入
+            }
+        }
+        cell.setCellValue(value);
+    }
+
+    private static String getFormula(XmlObject ref) {
+        if (ref instanceof CTNumRef) {
+            return ((CTNumRef) ref).getF();
+        } else if (ref instanceof CTStrRef) {
+            return ((CTStrRef) ref).getF();
+        } else if (ref instanceof CTMultiLvlStrRef) {
+            return ((CTMultiLvlStrRef) ref).getF();
+        }
+        return null;
+    }
+
+    private static void setFormula(XmlObject ref, String formula) {
+        if (ref instanceof CTNumRef) {
+            ((CTNumRef) ref).setF(formula);
+        } else if (ref instanceof CTStrRef) {
+            ((CTStrRef) ref).setF(formula);
+        } else if (ref instanceof CTMultiLvlStrRef) {
+            ((CTMultiLvlStrRef) ref).setF(formula);
+        }
+    }
+
+    // 待执行的更新
+    private static class PendingUpdate {
+        private final XmlObject ref;    // 引用内嵌 excel 的节点：CTNumRef、CTStrRef 或 CTMultiLvlStrRef
+        private final boolean numeric;  // 是否数值型引用
+        private final List<List<String>> data;  // 每一层的数据，数据系列只有一层
+        private final Runnable cacheUpdate;     // 更新图表缓存
+
+        private PendingUpdate(XmlObject ref, boolean numeric, List<List<String>> data, Runnable cacheUpdate) {
+            this.ref = ref;
+            this.numeric = numeric;
+            this.data = data;
+            this.cacheUpdate = cacheUpdate;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.livekeys.officetool.pptutil;
+
+import org.openxmlformats.schemas.drawingml.x2006.main.CTLineProperties;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTSolidColorFillProperties;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTableCell;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTableCellProperties;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextBody;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextParagraph;
+
+/**
+ * 编译后的单元格样式，由 PPTUtil.compileCellStyle 根据 TableCellStyle 生成
+ *
+ * 填充和边框预先生成好节点原型，应用时整体复制到单元格的 tcPr 中；文本样式使用 CompiledTextStyle。
+ * 创建后不再修改，可以在多个线程、多份 ppt 之间共用。
+ */
+public final class CompiledCellStyle {
+
+    static final int LEFT = 0;
+    static final int RIGHT = 1;
+    static final int TOP = 2;
+    static final int BOTTOM = 3;
+
+    private final CompiledTextStyle textStyle;      // 为 null 时不修改文本样式
+    private final boolean setFill;
+    private final CTSolidColorFillProperties fill;  // setFill 为 true 且为 null 时表示无填充
+    private final boolean[] borderPositions;        // 需要修改的边框方向，下标为 LEFT、RIGHT、TOP、BOTTOM
+    private final CTLineProperties border;          // 为 null 时去掉边框
+
+    CompiledCellStyle(CompiledTextStyle textStyle, boolean setFill, CTSolidColorFillProperties fill,
+                      boolean[] borderPositions, CTLineProperties border) {
+        this.textStyle = textStyle;
+        this.setFill = setFill;
+        this.fill = fill;
+        this.borderPositions = borderPositions.clone();
+        this.border = border;
+    }
+
+    /**
+     * 把样式应用到单元格上
+     * @param tc
+     */
+    public void applyTo(CTTableCell tc) {
+        if (textStyle != null) {
+            CTTextBody txBody = tc.getTxBody();
+            if (txBody != null) {
+                for (CTTextParagraph paragraph : txBody.getPList()) {
+                    textStyle.applyTo(paragraph);
+                }
+            }
+        }
+
+        if (!setFill && !hasBorder()) {
+            return;
+        }
+        CTTableCellProperties tcPr = tc.isSetTcPr() ? tc.getTcPr() : tc.addNewTcPr();
+        if (hasBorder()) {
+            applyBorder(tcPr);
+        }
+        if (setFill) {
+            applyFill(tcPr);
+        }
+    }
+
+    // 是否需要修改边框
+    private boolean hasBorder() {
+        return borderPositions[LEFT] || borderPositions[RIGHT] || borderPositions[TOP] || borderPositions[BOTTOM];
+    }
+
+    // 设置或去掉各方向的边框
+    private void applyBorder(CTTableCellProperties tcPr) {
+        if (borderPositions[LEFT]) {
+            if (border != null) {
+                tcPr.setLnL(border);
+            } else if (tcPr.isSetLnL()) {
+                tcPr.unsetLnL();
+            }
+        }
+        if (borderPositions[RIGHT]) {
+            if (border != null) {
+                tcPr.setLnR(border);
+            } else if (tcPr.isSetLnR()) {
+                tcPr.unsetLnR();
+            }
+        }
+        if (borderPositions[TOP]) {
+            if (border != null) {
+                tcPr.setLnT(border);
+            } else if (tcPr.isSetLnT()) {
+                tcPr.unsetLnT();
+            }
+        }
+        if (borderPositions[BOTTOM]) {
+            if (border != null) {
+                tcPr.setLnB(border);
+            } else if (tcPr.isSetLnB()) {
+                tcPr.unsetLnB();
+            }
+        }
+    }
+
+    // 设置填充，填充类型是多选一的，先去掉其他类型的填充
+    private void applyFill(CTTableCellProperties tcPr) {
+        if (tcPr.isSetGradFill()) {
+            tcPr.unsetGradFill();
+        }
+        if (tcPr.isSetBlipFill()) {
+            tcPr.unsetBlipFill();
+        }
+        if (tcPr.isSetPattFill()) {
+            tcPr.unsetPattFill();
+        }
+        if (tcPr.isSetGrpFill()) {
+            tcPr.unsetGrpFill();
+        }
+        if (fill == null) {
+            if (tcPr.isSetSolidFill()) {
+                tcPr.unsetSolidFill();
+            }
+            if (!tcPr.isSetNoFill()) {
+                tcPr.addNewNoFill();
+            }
+        } else {
+            if (tcPr.isSetNoFill()) {
+                tcPr.unsetNoFill();
+            }
+            tcPr.setSolidFill(fill);
+        }
+    }
+}
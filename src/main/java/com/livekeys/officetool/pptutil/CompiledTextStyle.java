@@ -0,0 +1,89 @@
+package com.livekeys.officetool.pptutil;
+
+import org.openxmlformats.schemas.drawingml.x2006.main.CTRegularTextRun;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextCharacterProperties;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextField;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextLineBreak;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextParagraph;
+
+/**
+ * 编译后的文本样式，由 PPTUtil.compileTextStyle 根据 ParagraphTextStyle 生成
+ *
+ * 内部保存一个只包含样式中已设置项的 rPr 原型，应用到 run 时一次性合并到 run 的 rPr 上：
+ * 属性直接复制，颜色和字体节点整体复制，不再逐项获取或创建 rPr；字体节点使用编译时 PPTUtil 的 FontRegistry 生成。
+ * 创建后不再修改，可以在多个线程、多份 ppt 之间共用。
+ */
+public final class CompiledTextStyle {
+
+    private final CTTextCharacterProperties prototype;
+    private final boolean unsetLatin;   // 只设置了中文字体时删除西文字体，与 setTextFontFamily 一致
+
+    CompiledTextStyle(CTTextCharacterProperties prototype, boolean unsetLatin) {
+        this.prototype = prototype;
+        this.unsetLatin = unsetLatin;
+    }
+
+    /**
+     * 获取 rPr 原型的副本
+     * @return
+     */
+    public CTTextCharacterProperties getPrototype() {
+        return (CTTextCharacterProperties) prototype.copy();
+    }
+
+    /**
+     * 把样式合并到 rPr 上，原型中没有设置的项保持不变
+     * @param rPr
+     */
+    public void applyTo(CTTextCharacterProperties rPr) {
+        CTTextCharacterProperties proto = this.prototype;
+        if (proto.isSetB()) {
+            rPr.setB(proto.getB());
+        }
+        if (proto.isSetI()) {
+            rPr.setI(proto.getI());
+        }
+        if (proto.isSetSz()) {
+            rPr.setSz(proto.getSz());
+        }
+        if (proto.isSetStrike()) {
+            rPr.setStrike(proto.getStrike());
+        }
+        if (proto.isSetU()) {
+            rPr.setU(proto.getU());
+        }
+        if (proto.isSetSolidFill()) {
+            rPr.setSolidFill(proto.getSolidFill());
+        }
+        // 字体已经相同时不复制
+        if (proto.isSetLatin()) {
+            if (!rPr.isSetLatin() || !FontRegistry.sameFont(rPr.getLatin(), proto.getLatin())) {
+                rPr.setLatin(proto.getLatin());
+            }
+        } else if (unsetLatin && rPr.isSetLatin()) {
+            rPr.unsetLatin();
+        }
+        if (proto.isSetEa() && (!rPr.isSetEa() || !FontRegistry.sameFont(rPr.getEa(), proto.getEa()))) {
+            rPr.setEa(proto.getEa());
+        }
+        if (proto.isSetCs() && (!rPr.isSetCs() || !FontRegistry.sameFont(rPr.getCs(), proto.getCs()))) {
+            rPr.setCs(proto.getCs());
+        }
+    }
+
+    /**
+     * 把样式应用到段落中所有的 run、换行和域上
+     * @param paragraph
+     */
+    public void applyTo(CTTextParagraph paragraph) {
+        for (CTRegularTextRun r : paragraph.getRList()) {
+            applyTo(r.getRPr() == null ? r.addNewRPr() : r.getRPr());
+        }
+        for (CTTextLineBreak br : paragraph.getBrList()) {
+            applyTo(br.getRPr() == null ? br.addNewRPr() : br.getRPr());
+        }
+        for (CTTextField fld : paragraph.getFldList()) {
+            applyTo(fld.getRPr() == null ? fld.addNewRPr() : fld.getRPr());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.livekeys.officetool.pptutil;
+
+import org.apache.poi.sl.usermodel.Placeholder;
+import org.apache.poi.xslf.usermodel.XSLFChart;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 整个 ppt 的 shape 索引，由各幻灯片的 SlideIndex 汇总而成，按幻灯片顺序保存
+ * 建立后不再检查幻灯片的变化，由 PPTUtil 在幻灯片有增删或者某张幻灯片的索引被丢弃时丢弃
+ */
+final class DeckIndex {
+
+    private final Map<String, List<XSLFShape>> byName = new HashMap<String, List<XSLFShape>>();
+    private final Map<String, List<XSLFShape>> byAltText = new HashMap<String, List<XSLFShape>>();
+    private final Map<Placeholder, List<XSLFShape>> byPlaceholder = new EnumMap<Placeholder, List<XSLFShape>>(Placeholder.class);
+    private final Map<XSLFShape, XSLFChart> chartByFrame = new IdentityHashMap<XSLFShape, XSLFChart>();
+
+    DeckIndex(PPTUtil pptUtil, List<XSLFSlide> slides) {
+        for (XSLFSlide slide : slides) {
+            SlideIndex slideIndex = pptUtil.getSlideIndex(slide);
+            merge(byName, slideIndex.getNameMap());
+            merge(byAltText, slideIndex.getAltTextMap());
+            merge(byPlaceholder, slideIndex.getPlaceholderMap());
+            chartByFrame.putAll(slideIndex.getChartMap());
+        }
+    }
+
+    // 按名称查找，找不到时按替代文字查找
+    List<XSLFShape> findShapes(String name) {
+        List<XSLFShape> shapes = byName.get(name);
+        if (shapes == null) {
+            shapes = byAltText.get(name);
+        }
+        return shapes == null ? Collections.<XSLFShape>emptyList() : Collections.unmodifiableList(shapes);
+    }
+
+    // 按名称查找第一个某类 shape
+    <T extends XSLFShape> T findShape(String name, Class<T> type) {
+        for (XSLFShape shape : findShapes(name)) {
+            if (type.isInstance(shape)) {
+                return type.cast(shape);
+            }
+        }
+        return null;
+    }
+
+    // 按图表所在 shape 的名称查找图表
+    XSLFChart findChart(String name) {
+        for (XSLFShape shape : findShapes(name)) {
+            XSLFChart chart = chartByFrame.get(shape);
+            if (chart != null) {
+                return chart;
+            }
+        }
+        return null;
+    }
+
+    List<XSLFShape> findPlaceholders(Placeholder placeholder) {
+        List<XSLFShape> shapes = byPlaceholder.get(placeholder);
+        return shapes == null ? Collections.<XSLFShape>emptyList() : Collections.unmodifiableList(shapes);
+    }
+
+    // 把一张幻灯片的索引追加到整个 ppt 的索引中
+    private static <K> void merge(Map<K, List<XSLFShape>> target, Map<K, List<XSLFShape>> source) {
+        for (Map.Entry<K, List<XSLFShape>> entry : source.entrySet()) {
+            List<XSLFShape> list = target.get(entry.getKey());
+            if (list == null) {
+                list = new ArrayList<XSLFShape>();
+                target.put(entry.getKey(), list);
+            }
+            list.addAll(entry.getValue());
+        }
+    }
+}
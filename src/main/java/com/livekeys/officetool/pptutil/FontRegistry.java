@@ -0,0 +1,161 @@
+package com.livekeys.officetool.pptutil;
+
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextCharacterProperties;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextFont;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 字体注册表，按字体名称和书写体系缓存预先生成好的字体节点（typeface、pitchFamily、charset）
+ *
+ * 设置字体时直接复制缓存的节点，run 上已经是目标字体时不做修改。
+ * 默认 pitchFamily 为 34，各书写体系的 charset 默认为 -122（GB2312），可以通过 setCharset 修改，
+ * 修改后会清空缓存，配置应在使用前完成。默认注册表由所有 PPTUtil 共用，需要不同配置时创建新的注册表并设置到 PPTUtil 上。
+ */
+public final class FontRegistry {
+
+    /**
+     * 书写体系，分别对应 rPr 中的 latin、ea、cs 节点
+     */
+    public enum Script {
+        LATIN,          // 西文
+        EAST_ASIAN,     // 中日韩
+        COMPLEX_SCRIPT  // 复杂文种
+    }
+
+    public static final byte DEFAULT_PITCH_FAMILY = 34;
+    public static final byte DEFAULT_CHARSET = -122;  // GB2312
+
+    private static final int MAX_CACHE_SIZE = 256;
+    private static final FontRegistry DEFAULT = new FontRegistry();
+
+    private final Map<Script, Byte> charsets = new EnumMap<Script, Byte>(Script.class);
+    private volatile byte pitchFamily = DEFAULT_PITCH_FAMILY;
+    private final ConcurrentMap<String, CTTextFont[]> fonts = new ConcurrentHashMap<String, CTTextFont[]>();
+
+    public FontRegistry() {
+        for (Script script : Script.values()) {
+            charsets.put(script, DEFAULT_CHARSET);
+        }
+    }
+
+    /**
+     * 获取所有 PPTUtil 默认共用的注册表
+     * @return
+     */
+    public static FontRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 设置某个书写体系的 charset，如 GB2312 为 -122，Big5 为 -120，ANSI 为 0
+     * @param script
+     * @param charset
+     */
+    public synchronized void setCharset(Script script, byte charset) {
+        charsets.put(script, charset);
+        fonts.clear();
+    }
+
+    /**
+     * 获取某个书写体系的 charset
+     * @param script
+     * @return
+     */
+    public synchronized byte getCharset(Script script) {
+        return charsets.get(script);
+    }
+
+    /**
+     * 设置 pitchFamily
+     * @param pitchFamily
+     */
+    public synchronized void setPitchFamily(byte pitchFamily) {
+        this.pitchFamily = pitchFamily;
+        fonts.clear();
+    }
+
+    public byte getPitchFamily() {
+        return pitchFamily;
+    }
+
+    /**
+     * 获取字体节点，返回的节点是缓存中的原型，不能修改
+     * @param script
+     * @param typeface
+     * @return
+     */
+    public CTTextFont getFont(Script script, String typeface) {
+        CTTextFont[] descriptors = fonts.get(typeface);
+        if (descriptors == null) {
+            descriptors = createDescriptors(typeface);
+            if (fonts.size() >= MAX_CACHE_SIZE) {
+                fonts.clear();
+            }
+            fonts.put(typeface, descriptors);
+        }
+        return descriptors[script.ordinal()];
+    }
+
+    /**
+     * 设置 rPr 中某个书写体系的字体，已经是该字体时不做修改
+     * @param rPr
+     * @param script
+     * @param typeface
+     */
+    public void apply(CTTextCharacterProperties rPr, Script script, String typeface) {
+        CTTextFont font = getFont(script, typeface);
+        switch (script) {
+            case LATIN: {
+                if (!rPr.isSetLatin() || !sameFont(rPr.getLatin(), font)) {
+                    rPr.setLatin(font);
+                }
+                break;
+            }
+            case EAST_ASIAN: {
+                if (!rPr.isSetEa() || !sameFont(rPr.getEa(), font)) {
+                    rPr.setEa(font);
+                }
+                break;
+            }
+            default: {
+                if (!rPr.isSetCs() || !sameFont(rPr.getCs(), font)) {
+                    rPr.setCs(font);
+                }
+            }
+        }
+    }
+
+    /**
+     * 两个字体节点的 typeface、pitchFamily、charset 是否相同
+     * @param font
+     * @param other
+     * @return
+     */
+    public static boolean sameFont(CTTextFont font, CTTextFont other) {
+        String typeface = font.getTypeface();
+        return typeface != null && typeface.equals(other.getTypeface())
+                && font.isSetPitchFamily() == other.isSetPitchFamily()
+                && (!font.isSetPitchFamily() || font.getPitchFamily() == other.getPitchFamily())
+                && font.isSetCharset() == other.isSetCharset()
+                && (!font.isSetCharset() || font.getCharset() == other.getCharset())
+                && !font.isSetPanose() && !other.isSetPanose();
+    }
+
+    // 生成某个字体在各书写体系下的节点
+    private synchronized CTTextFont[] createDescriptors(String typeface) {
+        Script[] scripts = Script.values();
+        CTTextFont[] descriptors = new CTTextFont[scripts.length];
+        for (Script script : scripts) {
+            CTTextFont font = CTTextFont.Factory.newInstance();
+            font.setTypeface(typeface);
+            font.setPitchFamily(pitchFamily);
+            font.setCharset(charsets.get(script));
+            descriptors[script.ordinal()] = font;
+        }
+        return descriptors;
+    }
+}
@@ -0,0 +1,253 @@
+package com.livekeys.officetool.pptutil;
+
+import org.openxmlformats.schemas.drawingml.x2006.main.CTColor;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTSolidColorFillProperties;
+import org.openxmlformats.schemas.drawingml.x2006.main.STSchemeColorVal;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ppt 中的颜色，可以是 RGB 颜色，也可以是主题颜色（accent1、tx1 等）
+ *
+ * 颜色对象按 RGB 值或主题颜色缓存，"#FF0000"、"ff0000"、"#F00" 和 rgb(255, 0, 0) 得到同一个对象；
+ * 缓存有上限，超过后按最近最少使用的顺序淘汰。
+ * 对象不可变，可以在多个线程之间共用。
+ */
+public final class PPTColor {
+
+    private static final int MAX_CACHE_SIZE = 256;
+    // 键为 0xRRGGBB 形式的 Integer 或 STSchemeColorVal.Enum，按访问顺序排列，读写时锁住 CACHE
+    private static final LinkedHashMap<Object, PPTColor> CACHE = new LinkedHashMap<Object, PPTColor>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, PPTColor> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
+    public static final PPTColor BLACK = rgb(0, 0, 0);
+    public static final PPTColor WHITE = rgb(255, 255, 255);
+
+    private final byte[] rgb;   // RGB 颜色，主题颜色时为 null
+    private final STSchemeColorVal.Enum scheme; // 主题颜色，RGB 颜色时为 null
+
+    private PPTColor(byte[] rgb, STSchemeColorVal.Enum scheme) {
+        this.rgb = rgb;
+        this.scheme = scheme;
+    }
+
+    /**
+     * 根据 RGB 分量创建颜色
+     * @param red
+     * @param green
+     * @param blue
+     * @return
+     */
+    public static PPTColor rgb(int red, int green, int blue) {
+        return intern(((red & 0xFF) << 16) | ((green & 0xFF) << 8) | (blue & 0xFF));
+    }
+
+    /**
+     * 根据主题颜色名称创建颜色，如 accent1、tx1、bg1
+     * @param name
+     * @return
+     */
+    public static PPTColor scheme(String name) {
+        STSchemeColorVal.Enum scheme = STSchemeColorVal.Enum.forString(name);
+        if (scheme == null) {
+            throw new IllegalArgumentException("unknown scheme color: " + name);
+        }
+        return intern(scheme);
+    }
+
+    /**
+     * 解析颜色字符串，支持 #RRGGBB、RRGGBB、#RGB 和主题颜色名称
+     * @param color
+     * @return
+     */
+    public static PPTColor valueOf(String color) {
+        return intern(parse(color));
+    }
+
+    // 从缓存中获取颜色，没有时创建
+    private static PPTColor intern(Object key) {
+        synchronized (CACHE) {
+            PPTColor result = CACHE.get(key);
+            if (result == null) {
+                if (key instanceof Integer) {
+                    int value = (Integer) key;
+                    result = new PPTColor(new byte[] {(byte) (value >> 16), (byte) (value >> 8), (byte) value}, null);
+                } else {
+                    result = new PPTColor(null, (STSchemeColorVal.Enum) key);
+                }
+                CACHE.put(key, result);
+            }
+            return result;
+        }
+    }
+
+    // 解析颜色字符串，返回 0xRRGGBB 形式的 Integer 或 STSchemeColorVal.Enum
+    private static Object parse(String color) {
+        int start = color.startsWith("#") ? 1 : 0;
+        int len = color.length() - start;
+        if (len == 6 || (len == 3 && start == 1)) {
+            int value = 0;
+            for (int i = start; i < color.length(); i++) {
+                int digit = Character.digit(color.charAt(i), 16);
+                if (digit < 0) {
+                    value = -1;
+                    break;
+                }
+                value = (value << 4) | digit;
+            }
+            if (value >= 0) {
+                if (len == 3) {     // #RGB 每一位重复一次
+                    return ((value >> 8) & 0xF) * 0x110000 | ((value >> 4) & 0xF) * 0x1100 | (value & 0xF) * 0x11;
+                }
+                return value;
+            }
+        }
+        if (start == 0) {
+            STSchemeColorVal.Enum scheme = STSchemeColorVal.Enum.forString(color);
+            if (scheme != null) {
+                return scheme;
+            }
+        }
+        throw new IllegalArgumentException("invalid color: " + color);
+    }
+
+    /**
+     * 是否为主题颜色
+     * @return
+     */
+    public boolean isScheme() {
+        return scheme != null;
+    }
+
+    /**
+     * 获取 RGB 颜色的副本，主题颜色时返回 null
+     * @return
+     */
+    public byte[] getRGB() {
+        return rgb == null ? null : rgb.clone();
+    }
+
+    /**
+     * 获取主题颜色名称，RGB 颜色时返回 null
+     * @return
+     */
+    public String getSchemeName() {
+        return scheme == null ? null : scheme.toString();
+    }
+
+    /**
+     * 把颜色写入 solidFill，原有的 RGB 或主题颜色只修改值，保留其中的亮度等调整
+     * @param solidFill
+     */
+    public void applyTo(CTSolidColorFillProperties solidFill) {
+        if (scheme == null) {
+            if (!solidFill.isSetSrgbClr()) {
+                clear(solidFill);
+                solidFill.addNewSrgbClr();
+            }
+            solidFill.getSrgbClr().setVal(rgb);
+        } else {
+            if (!solidFill.isSetSchemeClr()) {
+                clear(solidFill);
+                solidFill.addNewSchemeClr();
+            }
+            solidFill.getSchemeClr().setVal(scheme);
+        }
+    }
+
+    /**
+     * 把颜色写入 CTColor，如项目符号颜色
+     * @param ctColor
+     */
+    public void applyTo(CTColor ctColor) {
+        if (scheme == null) {
+            if (!ctColor.isSetSrgbClr()) {
+                clear(ctColor);
+                ctColor.addNewSrgbClr();
+            }
+            ctColor.getSrgbClr().setVal(rgb);
+        } else {
+            if (!ctColor.isSetSchemeClr()) {
+                clear(ctColor);
+                ctColor.addNewSchemeClr();
+            }
+            ctColor.getSchemeClr().setVal(scheme);
+        }
+    }
+
+    // 颜色类型是多选一的，写入前去掉其他类型的颜色
+    private static void clear(CTSolidColorFillProperties solidFill) {
+        if (solidFill.isSetScrgbClr()) {
+            solidFill.unsetScrgbClr();
+        }
+        if (solidFill.isSetSrgbClr()) {
+            solidFill.unsetSrgbClr();
+        }
+        if (solidFill.isSetHslClr()) {
+            solidFill.unsetHslClr();
+        }
+        if (solidFill.isSetSysClr()) {
+            solidFill.unsetSysClr();
+        }
+        if (solidFill.isSetSchemeClr()) {
+            solidFill.unsetSchemeClr();
+        }
+        if (solidFill.isSetPrstClr()) {
+            solidFill.unsetPrstClr();
+        }
+    }
+
+    private static void clear(CTColor ctColor) {
+        if (ctColor.isSetScrgbClr()) {
+            ctColor.unsetScrgbClr();
+        }
+        if (ctColor.isSetSrgbClr()) {
+            ctColor.unsetSrgbClr();
+        }
+        if (ctColor.isSetHslClr()) {
+            ctColor.unsetHslClr();
+        }
+        if (ctColor.isSetSysClr()) {
+            ctColor.unsetSysClr();
+        }
+        if (ctColor.isSetSchemeClr()) {
+            ctColor.unsetSchemeClr();
+        }
+        if (ctColor.isSetPrstClr()) {
+            ctColor.unsetPrstClr();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PPTColor)) {
+            return false;
+        }
+        PPTColor other = (PPTColor) o;
+        return scheme == other.scheme && Arrays.equals(rgb, other.rgb);
+    }
+
+    @Override
+    public int hashCode() {
+        return scheme != null ? scheme.hashCode() : Arrays.hashCode(rgb);
+    }
+
+    @Override
+    public String toString() {
+        if (scheme != null) {
+            return scheme.toString();
+        }
+        return String.format("#%02X%02X%02X", rgb[0] & 0xFF, rgb[1] & 0xFF, rgb[2] & 0xFF);
+    }
+}
@@ -0,0 +1,163 @@
+package com.livekeys.officetool.pptutil;
+
+import com.livekeys.officetool.metrics.Counter;
+import com.livekeys.officetool.metrics.Metrics;
+import com.livekeys.officetool.metrics.Phase;
+import com.livekeys.officetool.metrics.RenderMetrics;
+import com.livekeys.officetool.pptutil.entity.TagLocation;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTRegularTextRun;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextParagraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的 ppt 模板
+ * 模板只解析一次，记录下每个 {tag} 所在的 slide、shape、段落和 run，
+ * 之后每次渲染按记录的位置顺序替换一遍，不再做正则匹配和递归查找
+ */
+public class PPTTemplate {
+
+    private static final Logger logger = LoggerFactory.getLogger(PPTTemplate.class);
+
+    private final byte[] templateData;  // 模板文件内容
+    private final List<TagLocation> tagLocations;   // 按 slide、shape、段落、run、偏移顺序排列的标签位置
+
+    private PPTTemplate(byte[] templateData, List<TagLocation> tagLocations) {
+        this.templateData = templateData;
+        this.tagLocations = tagLocations;
+    }
+
+    /**
+     * 从文件编译模板
+     * @param filePath
+     * @return
+     * @throws IOException
+     */
+    public static PPTTemplate compile(String filePath) throws IOException {
+        PPTTemplate template = compile(Files.readAllBytes(Paths.get(filePath)));
+        if (logger.isDebugEnabled()) {
+            logger.debug("已编译模板：" + filePath + "，标签数：" + template.tagLocations.size());
+        }
+        return template;
+    }
+
+    /**
+     * 从 pptx 文件内容编译模板
+     * @param templateData
+     * @return
+     * @throws IOException
+     */
+    public static PPTTemplate compile(byte[] templateData) throws IOException {
+        RenderMetrics metrics = Metrics.getDefault();
+        long start = Metrics.startTimer(metrics);
+        XMLSlideShow pptx = new XMLSlideShow(new ByteArrayInputStream(templateData));
+        try {
+            List<TagLocation> tagLocations = scanTags(new PPTUtil(pptx));
+            Metrics.stopTimer(metrics, Phase.PARSE, start);
+            return new PPTTemplate(templateData, Collections.unmodifiableList(tagLocations));
+        } finally {
+            pptx.getPackage().revert();
+        }
+    }
+
+    /**
+     * 获取模板中所有标签的位置
+     * @return
+     */
+    public List<TagLocation> getTagLocations() {
+        return tagLocations;
+    }
+
+    /**
+     * 用参数渲染出一份新的 ppt，模板本身不会被修改
+     * @param paramMap
+     * @return
+     * @throws IOException
+     */
+    public PPTUtil render(Map<String, Object> paramMap) throws IOException {
+        RenderMetrics metrics = Metrics.getDefault();
+        long start = Metrics.startTimer(metrics);
+        PPTUtil pptUtil = new PPTUtil(new XMLSlideShow(new ByteArrayInputStream(templateData)));
+        Metrics.stopTimer(metrics, Phase.LOAD, start);
+
+        start = Metrics.startTimer(metrics);
+        fill(pptUtil, paramMap);
+        Metrics.stopTimer(metrics, Phase.REPLACE, start);
+        return pptUtil;
+    }
+
+    // 扫描出所有标签的位置
+    @SuppressWarnings("deprecation")  // TagTokenizer 按下标访问 run 数组
+    private static List<TagLocation> scanTags(PPTUtil pptUtil) {
+        List<TagLocation> tagLocations = new ArrayList<TagLocation>();
+        List<XSLFSlide> slides = pptUtil.getSlides();
+        for (int slideIndex = 0; slideIndex < slides.size(); slideIndex++) {
+            List<XSLFShape> shapes = pptUtil.getTextShapes(slides.get(slideIndex));
+            for (int shapeIndex = 0; shapeIndex < shapes.size(); shapeIndex++) {
+                List<XSLFTextParagraph> paragraphs = pptUtil.parseParagraph(shapes.get(shapeIndex));
+                for (int paragraphIndex = 0; paragraphIndex < paragraphs.size(); paragraphIndex++) {
+                    CTTextParagraph paragraph = paragraphs.get(paragraphIndex).getXmlObject();
+                    TagTokenizer.tokenize(paragraph, paragraph.getRArray(), slideIndex, shapeIndex, paragraphIndex, tagLocations);
+                }
+            }
+        }
+        return tagLocations;
+    }
+
+    // 按标签位置顺序替换一遍，同一个段落内的标签一起替换
+    @SuppressWarnings("deprecation")  // TagTokenizer 按下标访问 run 数组
+    private void fill(PPTUtil pptUtil, Map<String, Object> paramMap) {
+        List<XSLFSlide> slides = pptUtil.getSlides();
+        List<XSLFShape> shapes = null;
+        List<XSLFTextParagraph> paragraphs = null;
+        int slideIndex = -1;
+        int shapeIndex = -1;
+
+        int touched = 0;   // 改写的 run 数
+        int i = 0;
+        while (i < tagLocations.size()) {
+            TagLocation first = tagLocations.get(i);
+
+            // 只有位置发生变化时才重新定位
+            if (first.getSlideIndex() != slideIndex) {
+                slideIndex = first.getSlideIndex();
+                shapes = pptUtil.getTextShapes(slides.get(slideIndex));
+                shapeIndex = -1;
+            }
+            if (first.getShapeIndex() != shapeIndex) {
+                shapeIndex = first.getShapeIndex();
+                paragraphs = pptUtil.parseParagraph(shapes.get(shapeIndex));
+            }
+
+            int end = i + 1;
+            while (end < tagLocations.size() && inSameParagraph(first, tagLocations.get(end))) {
+                end++;
+            }
+            CTRegularTextRun[] runs = paragraphs.get(first.getParagraphIndex()).getXmlObject().getRArray();
+            touched += TagTokenizer.replace(runs, tagLocations, i, end, paramMap);
+            i = end;
+        }
+        Metrics.increment(pptUtil.getMetrics(), Counter.TAGS_REPLACED, tagLocations.size());
+        Metrics.increment(pptUtil.getMetrics(), Counter.RUNS_TOUCHED, touched);
+    }
+
+    // 两个标签是否在同一个段落内
+    private static boolean inSameParagraph(TagLocation a, TagLocation b) {
+        return a.getSlideIndex() == b.getSlideIndex()
+                && a.getShapeIndex() == b.getShapeIndex()
+                && a.getParagraphIndex() == b.getParagraphIndex();
+    }
+}
@@ -5,11 +5,23 @@
 package com.livekeys.officetool.pptutil;
 
 import com.livekeys.officetool.pptutil.entity.ParagraphTextStyle;
-import org.apache.poi.ooxml.POIXMLDocumentPart;
+import com.livekeys.officetool.pptutil.entity.TableCellStyle;
+import com.livekeys.officetool.pptutil.entity.TagLocation;
+import com.livekeys.officetool.pptutil.entity.TagReplaceReport;
+import com.livekeys.officetool.io.OfficeFiles;
+import com.livekeys.officetool.metrics.Counter;
+import com.livekeys.officetool.metrics.Metrics;
+import com.livekeys.officetool.metrics.Phase;
+import com.livekeys.officetool.metrics.RenderMetrics;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.sl.usermodel.Placeholder;
 import org.apache.poi.sl.usermodel.TableCell;
 import org.apache.poi.sl.usermodel.TextBox;
 import org.apache.poi.sl.usermodel.TextParagraph;
 import org.apache.poi.xslf.usermodel.*;
+import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlObject;
 import org.openxmlformats.schemas.drawingml.x2006.chart.*;
 import org.openxmlformats.schemas.drawingml.x2006.main.*;
@@ -17,37 +29,149 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.*;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class PPTUtil {
+public class PPTUtil implements Closeable {
 
     private static final Logger logger = LoggerFactory.getLogger(PPTUtil.class);
 
     private XMLSlideShow pptx;
 
+    private final AtomicInteger parallelPhases = new AtomicInteger();  // 正在进行的并行幻灯片处理数
+
+    private final ConcurrentMap<XSLFSlide, SlideIndex> slideIndexes = new ConcurrentHashMap<XSLFSlide, SlideIndex>();  // 每张幻灯片的 shape 索引
+
+    private volatile DeckIndex deckIndex;   // 整个 ppt 的 shape 索引，按名称查找时建立
+
+    private FontRegistry fontRegistry = FontRegistry.getDefault();  // 设置字体时使用的字体注册表
+
+    private RenderMetrics metrics = Metrics.getDefault();   // 各阶段的计时和计数，默认不记录
+
     public PPTUtil(String filePath) {
         this.readPPT(filePath);
     }
 
+    public PPTUtil(XMLSlideShow pptx) {
+        this.pptx = pptx;
+    }
+
     public XMLSlideShow getPPTX() {
         return pptx;
     }
 
+    public FontRegistry getFontRegistry() {
+        return fontRegistry;
+    }
+
+    /**
+     * 设置字体时使用的字体注册表，默认使用 FontRegistry.getDefault()
+     * @param fontRegistry
+     */
+    public void setFontRegistry(FontRegistry fontRegistry) {
+        this.fontRegistry = fontRegistry;
+    }
+
+    public RenderMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 设置计时和计数的记录方式，默认使用 Metrics.getDefault()，为 null 时不记录
+     * @param metrics
+     */
+    public void setMetrics(RenderMetrics metrics) {
+        this.metrics = metrics == null ? Metrics.NOOP : metrics;
+    }
+
+    /**
+     * 读取 ppt 文件，整个文件读入内存，读取后不占用文件
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public static PPTUtil load(Path path) throws IOException {
+        PPTUtil pptUtil = load(OfficeFiles.newInputStream(path));
+        if (logger.isDebugEnabled()) {
+            logger.debug("已读取文件：" + path);
+        }
+        return pptUtil;
+    }
+
+    /**
+     * 从输入流读取 ppt，读取后输入流会被关闭
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static PPTUtil load(InputStream in) throws IOException {
+        RenderMetrics metrics = Metrics.getDefault();
+        long start = Metrics.startTimer(metrics);
+        try (InputStream input = in) {
+            PPTUtil pptUtil = new PPTUtil(new XMLSlideShow(input));
+            Metrics.stopTimer(metrics, Phase.LOAD, start);
+            return pptUtil;
+        }
+    }
+
+    /**
+     * 从通道读取 ppt，读取后通道会被关闭
+     * @param channel
+     * @return
+     * @throws IOException
+     */
+    public static PPTUtil load(SeekableByteChannel channel) throws IOException {
+        return load(OfficeFiles.newInputStream(channel));
+    }
+
+    /**
+     * 以随机访问的方式打开 ppt 文件，不把整个文件读入内存，只解析用到的部分
+     * 打开期间会占用文件，用完后需要调用 close；readOnly 为 true 时不能再写出 ppt
+     * @param file
+     * @param readOnly
+     * @return
+     * @throws IOException
+     */
+    public static PPTUtil open(File file, boolean readOnly) throws IOException {
+        RenderMetrics metrics = Metrics.getDefault();
+        long start = Metrics.startTimer(metrics);
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(file, readOnly ? PackageAccess.READ : PackageAccess.READ_WRITE);
+        } catch (InvalidFormatException e) {
+            throw new IOException("无法打开文件：" + file, e);
+        }
+        try {
+            PPTUtil pptUtil = new PPTUtil(new XMLSlideShow(pkg));
+            Metrics.stopTimer(metrics, Phase.LOAD, start);
+            return pptUtil;
+        } catch (RuntimeException e) {
+            pkg.revert();
+            throw new IOException("无法解析文件：" + file, e);
+        }
+    }
+
     // 读取 ppt
     private XMLSlideShow readPPT(String filePath) {
-        try {
-            this.pptx = new XMLSlideShow(new FileInputStream(new File(filePath)));
+        long start = Metrics.startTimer(metrics);
+        try (InputStream in = OfficeFiles.newInputStream(Paths.get(filePath))) {
+            this.pptx = new XMLSlideShow(in);
+            Metrics.stopTimer(metrics, Phase.LOAD, start);
             if (logger.isDebugEnabled()) {
                 logger.debug("已读取文件：" + filePath);
             }
@@ -61,28 +185,217 @@ public class PPTUtil {
     // 写入 ppt
     public void writePPT(String exportPath) {
         try {
-            File file = new File(exportPath);
-            if (file.exists()) {
-                file.delete();
-            }
-            this.pptx.write(new FileOutputStream(new File(exportPath)));
+            this.writePPT(Paths.get(exportPath));
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * 从幻灯片中获取图表
+     * 写入 ppt 文件，先写入同目录下的临时文件，完成后替换目标文件
+     * @param exportPath
+     * @throws IOException
+     */
+    public void writePPT(Path exportPath) throws IOException {
+        checkNotInParallelPhase();
+        OfficeFiles.writeAtomically(exportPath, new OfficeFiles.WriteAction() {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                writePackage(out);
+            }
+        });
+        if (logger.isDebugEnabled()) {
+            logger.debug("已写入文件：" + exportPath);
+        }
+    }
+
+    /**
+     * 写入 ppt 到输出流，不会关闭输出流
+     * @param out
+     * @throws IOException
+     */
+    public void writePPT(OutputStream out) throws IOException {
+        checkNotInParallelPhase();
+        this.writePackage(out);
+    }
+
+    /**
+     * 写入 ppt 到通道，不会关闭通道
+     * @param channel
+     * @throws IOException
+     */
+    public void writePPT(SeekableByteChannel channel) throws IOException {
+        checkNotInParallelPhase();
+        OfficeFiles.write(channel, new OfficeFiles.WriteAction() {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                writePackage(out);
+            }
+        });
+    }
+
+    // 写出 ppt，开启记录时统计耗时和字节数
+    private void writePackage(OutputStream out) throws IOException {
+        if (!metrics.isEnabled()) {
+            pptx.write(out);
+            return;
+        }
+        long start = Metrics.startTimer(metrics);
+        Metrics.CountingOutputStream counting = new Metrics.CountingOutputStream(out);
+        pptx.write(counting);
+        Metrics.increment(metrics, Counter.BYTES_WRITTEN, counting.getCount());
+        Metrics.stopTimer(metrics, Phase.WRITE, start);
+    }
+
+    /**
+     * 释放 ppt，不会把修改写回读取的文件
+     */
+    @Override
+    public void close() {
+        pptx.getPackage().revert();
+    }
+
+    // 开始并行处理幻灯片
+    void beginParallelPhase() {
+        parallelPhases.incrementAndGet();
+    }
+
+    // 并行处理幻灯片结束
+    void endParallelPhase() {
+        parallelPhases.decrementAndGet();
+    }
+
+    // 并行处理幻灯片期间不能做修改整个 ppt 的操作
+    private void checkNotInParallelPhase() {
+        if (parallelPhases.get() > 0) {
+            throw new IllegalStateException("slides are being processed in parallel, wait for it to finish");
+        }
+    }
+
+    /**
+     * 获取幻灯片的 shape 索引，第一次查询时建立，之后的查询不再遍历幻灯片，直到调用 invalidateSlideIndex
      * @param slide
      * @return
      */
-    public XSLFChart getChartFromSlide(XSLFSlide slide) {
-        for (POIXMLDocumentPart relation : slide.getRelations()) {
-            if (relation instanceof XSLFChart) {
-                return (XSLFChart) relation;
+    public SlideIndex getSlideIndex(XSLFSlide slide) {
+        SlideIndex slideIndex = slideIndexes.get(slide);
+        if (slideIndex == null) {
+            SlideIndex created = new SlideIndex(this, slide);
+            slideIndex = slideIndexes.putIfAbsent(slide, created);
+            if (slideIndex == null) {
+                slideIndex = created;
+                if (slideIndexes.size() > pptx.getSlides().size()) {
+                    pruneSlideIndexes();
+                }
+            }
+        }
+        return slideIndex;
+    }
+
+    // 删除已经从 ppt 中删除的幻灯片的索引
+    private void pruneSlideIndexes() {
+        Set<XSLFSlide> slides = new HashSet<XSLFSlide>(pptx.getSlides());
+        Iterator<Map.Entry<XSLFSlide, SlideIndex>> it = slideIndexes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<XSLFSlide, SlideIndex> entry = it.next();
+            if (!slides.contains(entry.getKey())) {
+                entry.getValue().invalidate();
+                it.remove();
             }
         }
-        return null;
+    }
+
+    /**
+     * 丢弃幻灯片的 shape 索引，直接通过 POI 新增、删除 shape 或者修改 shape 的名称、替代文字后调用
+     * @param slide
+     */
+    public void invalidateSlideIndex(XSLFSlide slide) {
+        SlideIndex slideIndex = slideIndexes.remove(slide);
+        if (slideIndex != null) {
+            slideIndex.invalidate();
+        }
+        invalidateDeckIndex();
+    }
+
+    /**
+     * 丢弃所有幻灯片的 shape 索引，直接通过 POI 新增、删除幻灯片或者调整幻灯片顺序后调用
+     */
+    public void invalidateSlideIndexes() {
+        for (SlideIndex slideIndex : slideIndexes.values()) {
+            slideIndex.invalidate();
+        }
+        slideIndexes.clear();
+        invalidateDeckIndex();
+    }
+
+    // 丢弃整个 ppt 的 shape 索引，下一次按名称查找时重建
+    void invalidateDeckIndex() {
+        deckIndex = null;
+    }
+
+    /**
+     * 根据名称查找 shape，名称为“选择窗格”中的名称，找不到时按替代文字查找，包括组合内的 shape
+     * @param name
+     * @return
+     */
+    public List<XSLFShape> findShapes(String name) {
+        return getDeckIndex().findShapes(name);
+    }
+
+    /**
+     * 根据名称查找第一个 shape，没有时返回 null
+     * @param name
+     * @return
+     */
+    public XSLFShape findShape(String name) {
+        return getDeckIndex().findShape(name, XSLFShape.class);
+    }
+
+    /**
+     * 根据名称查找表格，没有时返回 null
+     * @param name
+     * @return
+     */
+    public XSLFTable findTable(String name) {
+        return getDeckIndex().findShape(name, XSLFTable.class);
+    }
+
+    /**
+     * 根据图表所在 shape 的名称查找图表，没有时返回 null
+     * @param name
+     * @return
+     */
+    public XSLFChart findChart(String name) {
+        return getDeckIndex().findChart(name);
+    }
+
+    /**
+     * 查找所有幻灯片中某类占位符，例如 Placeholder.TITLE
+     * @param placeholder
+     * @return
+     */
+    public List<XSLFShape> findPlaceholders(Placeholder placeholder) {
+        return getDeckIndex().findPlaceholders(placeholder);
+    }
+
+    // 获取整个 ppt 的 shape 索引，还没有建立或者已经丢弃时重建，之后的查找不再检查各幻灯片
+    private DeckIndex getDeckIndex() {
+        DeckIndex current = this.deckIndex;
+        if (current == null) {
+            current = new DeckIndex(this, pptx.getSlides());
+            this.deckIndex = current;
+        }
+        return current;
+    }
+
+    /**
+     * 从幻灯片中获取图表
+     * @param slide
+     * @return
+     */
+    public XSLFChart getChartFromSlide(XSLFSlide slide) {
+        List<XSLFChart> charts = getSlideIndex(slide).getCharts();
+        return charts.isEmpty() ? null : charts.get(0);
     }
 
     /**
@@ -91,13 +404,7 @@ public class PPTUtil {
      * @return
      */
     public List<XSLFChart> getAllChartFromSlide(XSLFSlide slide) {
-        List<XSLFChart> charts = new ArrayList<XSLFChart>();
-        for (POIXMLDocumentPart relation : slide.getRelations()) {
-            if (relation instanceof XSLFChart) {
-                charts.add((XSLFChart) relation);
-            }
-        }
-        return charts;
+        return new ArrayList<XSLFChart>(getSlideIndex(slide).getCharts());
     }
 
     /**
@@ -106,12 +413,7 @@ public class PPTUtil {
      * @return
      */
     public XSLFTable getTableFromSlide(XSLFSlide slide) {
-        for (XSLFShape shape : slide.getShapes()) {
-            if (shape instanceof XSLFTable) {
-                return (XSLFTable) shape;
-            }
-        }
-        return null;
+        return getSlideIndex(slide).getTopLevelShape(XSLFTable.class);
     }
 
     /**
@@ -120,13 +422,7 @@ public class PPTUtil {
      * @return
      */
     public List<XSLFTable> getAllTableFromSlide(XSLFSlide slide) {
-        List<XSLFTable> tables = new ArrayList<XSLFTable>();
-        for (XSLFShape shape : slide.getShapes()) {
-            if (shape instanceof XSLFTable) {
-                tables.add((XSLFTable) shape);
-            }
-        }
-        return tables;
+        return new ArrayList<XSLFTable>(getSlideIndex(slide).getTopLevelShapes(XSLFTable.class));
     }
 
     /**
@@ -135,12 +431,7 @@ public class PPTUtil {
      * @return
      */
     public XSLFTextBox getTextBoxFromSlide(XSLFSlide slide) {
-        for (XSLFShape shape : slide.getShapes()) {
-            if (shape instanceof XSLFTextBox) {
-                return (XSLFTextBox) shape;
-            }
-        }
-        return null;
+        return getSlideIndex(slide).getTopLevelShape(XSLFTextBox.class);
     }
 
     /**
@@ -149,32 +440,15 @@ public class PPTUtil {
      * @return
      */
     public List<XSLFTextBox> getAllTextBoxFromSlide(XSLFSlide slide) {
-        List<XSLFTextBox> textBoxes = new ArrayList<XSLFTextBox>();
-        for (XSLFShape shape : slide.getShapes()) {
-            if (shape instanceof XSLFTextBox) {
-                textBoxes.add((XSLFTextBox) shape);
-            }
-        }
-        return textBoxes;
+        return new ArrayList<XSLFTextBox>(getSlideIndex(slide).getTopLevelShapes(XSLFTextBox.class));
     }
 
     public XSLFAutoShape getAutoShape(XSLFSlide slide) {
-        for (XSLFShape shape : slide.getShapes()) {
-            if (shape instanceof XSLFAutoShape) {
-                return (XSLFAutoShape) shape;
-            }
-        }
-        return null;
+        return getSlideIndex(slide).getTopLevelShape(XSLFAutoShape.class);
     }
 
     public List<XSLFAutoShape> getAllAutoShape(XSLFSlide slide) {
-        List<XSLFAutoShape> autoShapes = new ArrayList<XSLFAutoShape>();
-        for (XSLFShape shape : slide.getShapes()) {
-            if (shape instanceof XSLFAutoShape) {
-                autoShapes.add((XSLFAutoShape) shape);
-            }
-        }
-        return autoShapes;
+        return new ArrayList<XSLFAutoShape>(getSlideIndex(slide).getTopLevelShapes(XSLFAutoShape.class));
     }
 
     // 获取所有幻灯片
@@ -276,17 +550,18 @@ public class PPTUtil {
      * @param colorHex
      */
     public void setBulletColor(XSLFTextParagraph ctTextParagraph, String colorHex) {
-        colorHex = this.nullToDefault(colorHex, "000000");
+        setBulletColor(ctTextParagraph, colorHex == null || "".equals(colorHex) ? PPTColor.BLACK : PPTColor.valueOf(colorHex));
+    }
 
+    /**
+     * 设置项目符号的颜色
+     * @param ctTextParagraph
+     * @param color
+     */
+    public void setBulletColor(XSLFTextParagraph ctTextParagraph, PPTColor color) {
         CTTextParagraphProperties pPr = this.getPPR(ctTextParagraph);
-        CTColor buClr = pPr.getBuClr();
-        if (pPr.isSetBuClr()) {
-            pPr.unsetBuClr();
-        }
-        CTTextParagraph xmlObject = ctTextParagraph.getXmlObject();
-        CTColor ctColor = pPr.addNewBuClr();
-        CTSRgbColor ctsRgbColor = ctColor.addNewSrgbClr();
-        ctsRgbColor.setVal(hexToByteArray(colorHex.substring(1)));
+        CTColor ctColor = pPr.isSetBuClr() ? pPr.getBuClr() : pPr.addNewBuClr();
+        color.applyTo(ctColor);
     }
 
     /**
@@ -423,8 +698,7 @@ public class PPTUtil {
 
         // 设置字体颜色
         CTSolidColorFillProperties solidColor = rPr.isSetSolidFill() ? rPr.getSolidFill() : rPr.addNewSolidFill();
-        CTSRgbColor ctColor = solidColor.isSetSrgbClr() ? solidColor.getSrgbClr() : solidColor.addNewSrgbClr();
-        ctColor.setVal(hexToByteArray(color.substring(1)));
+        PPTColor.valueOf(color).applyTo(solidColor);
         return textRun;
     }
 
@@ -507,6 +781,23 @@ public class PPTUtil {
         return textRun;
     }
 
+    /**
+     * 根据编译后的样式来设置文本的样式
+     * @param paragraph
+     * @param appendText
+     * @param text
+     * @param style
+     * @return
+     */
+    public XSLFTextRun addParagraphText(XSLFTextParagraph paragraph, Boolean appendText, String text, CompiledTextStyle style) {
+        XSLFTextRun textRun = getNewRun(paragraph, appendText); // 添加一个新的 run
+        textRun.setText(text);  // 设置文本
+
+        setTextStyle(textRun, style);
+
+        return textRun;
+    }
+
     // 取消某个方向上的边框
     private void unsetCellBorder(CTTableCellProperties cellProperties, String posStr) {
         switch (posStr) {
@@ -538,17 +829,21 @@ public class PPTUtil {
         }
     }
     // 设置边框的颜色和线条类型
-    private void setCellBorder(CTLineProperties ctLineProperties, String lineType, String lineColorHex) {
+    private void setCellBorder(CTLineProperties ctLineProperties, String lineType, PPTColor lineColor) {
         // 构造边框线的类型
         List<String> lineTypes = new ArrayList<String>();
         lineTypes.addAll(Arrays.asList("solid", "dot", "dash", "lgDash", "dashDot", "lgDashDot", "lgDashDotDot", "sysDash", "sysDot", "sysDashDot", "sysDashDotDot"));
 
         // 设置边框线的颜色
-        CTSolidColorFillProperties ctSolidColorFillProperties = ctLineProperties.addNewSolidFill();
-        CTSRgbColor ctsRgbColor = ctSolidColorFillProperties.addNewSrgbClr();
-        ctsRgbColor.setVal(hexToByteArray(lineColorHex.substring(1)));
+        if (lineColor != null) {
+            if (ctLineProperties.isSetNoFill()) {
+                ctLineProperties.unsetNoFill();
+            }
+            CTSolidColorFillProperties ctSolidColorFillProperties = ctLineProperties.isSetSolidFill() ? ctLineProperties.getSolidFill() : ctLineProperties.addNewSolidFill();
+            lineColor.applyTo(ctSolidColorFillProperties);
+        }
 
-        CTPresetLineDashProperties ctPresetLineDashProperties = ctLineProperties.addNewPrstDash();
+        CTPresetLineDashProperties ctPresetLineDashProperties = ctLineProperties.isSetPrstDash() ? ctLineProperties.getPrstDash() : ctLineProperties.addNewPrstDash();
         if (lineTypes.contains(lineType)) { // 在 lineTypes 里面
             ctPresetLineDashProperties.setVal(STPresetLineDashVal.Enum.forString(lineType));
         } else {    // 没在 lineTyppes 里面
@@ -564,17 +859,62 @@ public class PPTUtil {
 
     // 设置 run 属性
     private void setTextStyle(XSLFTextRun run, ParagraphTextStyle pts) {
+        setTextStyle(run, compileTextStyle(pts));
+    }
+
+    /**
+     * 把文本样式编译成可复用的 CompiledTextStyle，同一个样式要应用到大量 run 时先编译一次
+     * 各项的含义与 setTextBold、setTextFontFamily 等方法一致，没有设置的项不会修改 run 的原有样式
+     * @param pts
+     * @return
+     */
+    public CompiledTextStyle compileTextStyle(ParagraphTextStyle pts) {
+        CTTextCharacterProperties prototype = CTTextCharacterProperties.Factory.newInstance();
+        if (pts.getBold() != null) {
+            prototype.setB(pts.getBold());
+        }
+        boolean hasChineseFont = pts.getFontFamily() != null && !"".equals(pts.getFontFamily());
+        boolean hasWesternFont = pts.getWesternFontFamily() != null && !"".equals(pts.getWesternFontFamily());
+        if (hasChineseFont) {
+            this.setRPRChineseFontFamily(prototype, pts.getFontFamily());
+        }
+        if (hasWesternFont) {
+            this.setRPRWesternFontFamily(prototype, pts.getWesternFontFamily());
+        }
+        if (pts.getFontSize() != null && !"".equals(pts.getFontSize())) {
+            double fontSize = Double.valueOf(pts.getFontSize());
+            if (fontSize < 1.0) {
+                throw new IllegalArgumentException("Minimum font size is 1pt but was " + fontSize);
+            }
+            prototype.setSz((int) (100 * fontSize));
+        }
+        if (pts.getColorHex() != null && !"".equals(pts.getColorHex())) {
+            PPTColor.valueOf(pts.getColorHex()).applyTo(prototype.addNewSolidFill());
+        }
+        if (pts.getItalic() != null) {
+            prototype.setI(pts.getItalic());
+        }
+        if (pts.getStrike() != null) {
+            prototype.setStrike(pts.getStrike() ? STTextStrikeType.SNG_STRIKE : STTextStrikeType.NO_STRIKE);
+        }
+        if (pts.getUnderline() != null) {
+            prototype.setU(pts.getUnderline() ? STTextUnderlineType.SNG : STTextUnderlineType.NONE);
+        }
+        return new CompiledTextStyle(prototype, hasChineseFont && !hasWesternFont);
+    }
 
-        setTextBold(run, pts.getBold());
-        setTextFontFamily(run, pts.getFontFamily());
-        setTextWesternFontFamily(run, pts.getWesternFontFamily());
-        setTextFontSize(run, pts.getFontSize());
-        setTextColor(run, pts.getColorHex());
-        setTextItalic(run, pts.getItalic());
-        setTextStrike(run, pts.getStrike());
-        setTextUnderline(run, pts.getUnderline());
+    /**
+     * 把编译后的样式应用到 run 上
+     * @param run
+     * @param style
+     * @return
+     */
+    public XSLFTextRun setTextStyle(XSLFTextRun run, CompiledTextStyle style) {
+        style.applyTo(getRPr(run.getXmlObject()));
+        return run;
     }
 
+
     /**
      * 设置字体加粗
      * @param run
@@ -648,10 +988,23 @@ public class PPTUtil {
             return run;
         }
 
+        return setTextColor(run, PPTColor.valueOf(colorHex));
+    }
+
+    /**
+     * 设置字体颜色
+     * @param run
+     * @param color
+     * @return
+     */
+    public XSLFTextRun setTextColor(XSLFTextRun run, PPTColor color) {
+        if (color == null) {
+            return run;
+        }
+
         CTTextCharacterProperties rPr = getRPr(run.getXmlObject());
         CTSolidColorFillProperties solidColor = rPr.isSetSolidFill() ? rPr.getSolidFill() : rPr.addNewSolidFill();
-        CTSRgbColor ctColor = solidColor.isSetSrgbClr() ? solidColor.getSrgbClr() : solidColor.addNewSrgbClr();
-        ctColor.setVal(hexToByteArray(colorHex.substring(1)));
+        color.applyTo(solidColor);
         return run;
     }
 
@@ -704,31 +1057,77 @@ public class PPTUtil {
 
 
     /**
-     * 替换段内的标签文本
+     * 替换段内的标签文本，被拆分到多个 run 中的标签会合并到第一个 run 中
      * @param paragraph
      * @param paramMap
      */
     public void replaceTagInParagraph(XSLFTextParagraph paragraph, Map<String, Object> paramMap) {
-        String paraText = paragraph.getText();
-        String regEx = "\\{.+?\\}";
-        Pattern pattern = Pattern.compile(regEx);
-        Matcher matcher = pattern.matcher(paraText);
-
-        if (matcher.find()) {
-            StringBuilder keyWord = new StringBuilder();
-            int start = getRunIndex(paragraph, "{");
-            int end = getRunIndex(paragraph, "}");
-
-            // 处理 {***} 在一个 run 内的情况
-            if (start == end) {
-                String rs = matcher.group(0);   // 存放标签
-                keyWord.append(rs.replace("{", "").replace("}", ""));   // 存放 key
-                String text = getRunsT(paragraph, start, end + 1);  // 获取标签所在 run 的全部文字
-                String v = nullToDefault(paramMap.get(keyWord.toString()), keyWord.toString()); // 如果没在 paramMap 中没有找到这个标签所对应的值，那么就直接替换成标签的值
-                setText(paragraph.getTextRuns().get(start), text.replace(rs, v));   // 重新设置文本
+        long start = Metrics.startTimer(metrics);
+        replaceTags(paragraph.getXmlObject(), paramMap, new ArrayList<TagLocation>());
+        Metrics.stopTimer(metrics, Phase.REPLACE, start);
+    }
+
+    /**
+     * 一次遍历替换整个 ppt 中的标签，包括幻灯片上的文本（含组合内的）、表格单元格、备注页、版式、母版和图表标题
+     * @param paramMap
+     * @return 按文本位置统计的段落数和替换的标签数
+     */
+    public TagReplaceReport replaceTags(Map<String, Object> paramMap) {
+        long start = Metrics.startTimer(metrics);
+        TagReplaceReport report = new TagReplaceReport();
+        List<TagLocation> buffer = new ArrayList<TagLocation>();   // 各段落共用
+
+        for (XSLFTextParagraph paragraph : getDeckParagraphs()) {
+            int tags = replaceTags(paragraph.getXmlObject(), paramMap, buffer);
+            report.addParagraph(getTextContainer(paragraph), tags);
+        }
+
+        for (XSLFChart chart : getCharts()) {
+            CTChart ctChart = chart.getCTChart();
+            if (!ctChart.isSetTitle() || !ctChart.getTitle().isSetTx() || !ctChart.getTitle().getTx().isSetRich()) {
+                continue;
             }
-            replaceTagInParagraph(paragraph, paramMap); // 继续找
+            for (CTTextParagraph paragraph : ctChart.getTitle().getTx().getRich().getPList()) {
+                int tags = replaceTags(paragraph, paramMap, buffer);
+                report.addParagraph(TagReplaceReport.Container.CHART_TITLE, tags);
+            }
+        }
+
+        Metrics.stopTimer(metrics, Phase.REPLACE, start);
+        if (logger.isDebugEnabled()) {
+            logger.debug("标签替换完成：" + report);
+        }
+        return report;
+    }
+
+    // 替换一个段落中的所有标签，返回替换的标签数
+    @SuppressWarnings("deprecation")  // TagTokenizer 按下标访问 run 数组
+    private int replaceTags(CTTextParagraph paragraph, Map<String, Object> paramMap, List<TagLocation> buffer) {
+        CTRegularTextRun[] runs = paragraph.getRArray();
+        buffer.clear();
+        TagTokenizer.tokenize(paragraph, runs, -1, -1, -1, buffer);
+        if (!buffer.isEmpty()) {
+            int touched = TagTokenizer.replace(runs, buffer, 0, buffer.size(), paramMap);
+            Metrics.increment(metrics, Counter.TAGS_REPLACED, buffer.size());
+            Metrics.increment(metrics, Counter.RUNS_TOUCHED, touched);
+        }
+        return buffer.size();
+    }
+
+    // 判断段落所在的位置
+    TagReplaceReport.Container getTextContainer(XSLFTextParagraph paragraph) {
+        XSLFTextShape shape = paragraph.getParentShape();
+        XSLFSheet sheet = shape.getSheet();
+        if (sheet instanceof XSLFNotes) {
+            return TagReplaceReport.Container.NOTES;
+        } else if (sheet instanceof XSLFSlideLayout) {
+            return TagReplaceReport.Container.LAYOUT;
+        } else if (sheet instanceof XSLFSlideMaster) {
+            return TagReplaceReport.Container.MASTER;
+        } else if (shape instanceof XSLFTableCell) {
+            return TagReplaceReport.Container.TABLE;
         }
+        return TagReplaceReport.Container.SHAPE;
     }
 
     /**
@@ -738,24 +1137,58 @@ public class PPTUtil {
      */
     public List<XSLFTextParagraph> getParagraphsFromSlide(XSLFSlide slide) {
         List<XSLFTextParagraph> textParagraphs = new ArrayList<XSLFTextParagraph>();    // 存放所有 shape 的所有段落
-        List<XSLFShape> textShapes = new ArrayList<XSLFShape>();    // 存放所有可能拥有段落文本的 shape
-
-        // 解析出所有段落文本的 shape
-        List<XSLFShape> shapes = slide.getShapes();
-        for (XSLFShape shape : shapes) {
-            getTextShape(textShapes, shape);
-        }
 
-        // 解析出所有段落
-        for (XSLFShape shape : textShapes) {
-            textParagraphs.addAll(parseParagraph(shape));
+        // 解析出所有段落，组合 shape 已经在索引中展开
+        for (XSLFShape shape : getSlideIndex(slide).getShapes()) {
+            if (shape instanceof XSLFTextShape) {
+                textParagraphs.addAll(((XSLFTextShape) shape).getTextParagraphs());
+            }
         }
 
         return textParagraphs;
     }
 
+    /**
+     * 获取整个 ppt 中幻灯片、备注页、版式和母版内的所有段落，包括组合和表格内的段落
+     *
+     * 段落在遍历时按需展开，不会预先生成列表；stream(true) 时按页面并行处理
+     * @return
+     */
+    public SheetParagraphs getDeckParagraphs() {
+        return getDeckParagraphs(EnumSet.allOf(SheetParagraphs.Source.class));
+    }
+
+    /**
+     * 获取整个 ppt 中指定来源的所有段落，包括组合和表格内的段落
+     * @param sources
+     * @return
+     */
+    public SheetParagraphs getDeckParagraphs(Set<SheetParagraphs.Source> sources) {
+        return SheetParagraphs.of(pptx, sources);
+    }
+
+    /**
+     * 获取一个页面（幻灯片、备注页、版式或母版）内的所有段落，包括组合和表格内的段落
+     * @param sheet
+     * @return
+     */
+    public SheetParagraphs getSheetParagraphs(XSLFSheet sheet) {
+        return new SheetParagraphs(Collections.singletonList(sheet));
+    }
+
+    // 解析出幻灯片内所有可能拥有段落文本的 shape，组合 shape 会被展开
+    List<XSLFShape> getTextShapes(XSLFSlide slide) {
+        List<XSLFShape> textShapes = new ArrayList<XSLFShape>();    // 存放所有可能拥有段落文本的 shape
+        for (XSLFShape shape : getSlideIndex(slide).getShapes()) {
+            if (!(shape instanceof XSLFGroupShape)) {
+                textShapes.add(shape);
+            }
+        }
+        return textShapes;
+    }
+
     // 解析一个 shape 内的所有段落
-    private List<XSLFTextParagraph> parseParagraph(XSLFShape shape) {
+    List<XSLFTextParagraph> parseParagraph(XSLFShape shape) {
         if (shape instanceof XSLFAutoShape) {
             XSLFAutoShape autoShape = (XSLFAutoShape) shape;
             return autoShape.getTextParagraphs();
@@ -769,19 +1202,7 @@ public class PPTUtil {
             TextBox textBox = (TextBox) shape;
             return textBox.getTextParagraphs();
         }
-        return new ArrayList<XSLFTextParagraph>();
-    }
-
-    // 解析出所有可能拥有段落文本的 shape
-    private void getTextShape(List<XSLFShape> shapeList, XSLFShape shape) {
-        if (shape instanceof XSLFGroupShape) {
-            XSLFGroupShape groupShape = (XSLFGroupShape) shape;
-            for (XSLFShape xslfShape : groupShape.getShapes()) {
-                getTextShape(shapeList, xslfShape);
-            }
-        } else {
-            shapeList.add(shape);
-        }
+        return Collections.emptyList();
     }
 
     /**
@@ -839,6 +1260,15 @@ public class PPTUtil {
         return plotArea.getRadarChartList();
     }
 
+    /**
+     * 绑定图表数据，通过返回的对象更新的数据会同时写入图表缓存和内嵌的 excel
+     * @param chart
+     * @return
+     */
+    public ChartDataBinding bindChart(XSLFChart chart) {
+        return new ChartDataBinding(this, chart);
+    }
+
     /**
      * 更新柱状图的 cat 缓存
      * @param barChart
@@ -870,16 +1300,40 @@ public class PPTUtil {
     }
 
     /**
-     * 更新折线图的 cat 缓存
-     * @param lineChart
+     * 更新柱状图的缓存数据，直接写入数值，不需要先转换成字符串列表
+     * @param barChart
      * @param serIndex
      * @param data
+     * @param formatCode    数字格式，如 "0.00"，为空时保留原来的格式
      */
-    public void updateLineCat(CTLineChart lineChart, int serIndex, List<List<String>> data) {
-        CTLineSer ctLineSer = lineChart.getSerList().get(serIndex);
-        CTAxDataSource cat = ctLineSer.getCat();
+    public void updateBarDataCache(CTBarChart barChart, int serIndex, double[] data, String formatCode) {
+        CTBarSer ctBarSer = barChart.getSerArray(serIndex);
+        this.replaceVal(ctBarSer.getVal().getNumRef(), data, formatCode);
+    }
 
-        if (lineChart.isSetExtLst()) {
+    /**
+     * 更新柱状图的缓存数据，直接写入整数
+     * @param barChart
+     * @param serIndex
+     * @param data
+     * @param formatCode    数字格式，为空时保留原来的格式
+     */
+    public void updateBarDataCache(CTBarChart barChart, int serIndex, long[] data, String formatCode) {
+        CTBarSer ctBarSer = barChart.getSerArray(serIndex);
+        this.replaceVal(ctBarSer.getVal().getNumRef(), data, formatCode);
+    }
+
+    /**
+     * 更新折线图的 cat 缓存
+     * @param lineChart
+     * @param serIndex
+     * @param data
+     */
+    public void updateLineCat(CTLineChart lineChart, int serIndex, List<List<String>> data) {
+        CTLineSer ctLineSer = lineChart.getSerList().get(serIndex);
+        CTAxDataSource cat = ctLineSer.getCat();
+
+        if (lineChart.isSetExtLst()) {
             lineChart.unsetExtLst();
         }
 
@@ -899,6 +1353,30 @@ public class PPTUtil {
         this.replaceVal(numRef, data);
     }
 
+    /**
+     * 更新折线图的缓存数据，直接写入数值，不需要先转换成字符串列表
+     * @param lineChart
+     * @param serIndex
+     * @param data
+     * @param formatCode    数字格式，如 "0.00"，为空时保留原来的格式
+     */
+    public void updateLineDataCache(CTLineChart lineChart, int serIndex, double[] data, String formatCode) {
+        CTLineSer ctLineSer = lineChart.getSerArray(serIndex);
+        this.replaceVal(ctLineSer.getVal().getNumRef(), data, formatCode);
+    }
+
+    /**
+     * 更新折线图的缓存数据，直接写入整数
+     * @param lineChart
+     * @param serIndex
+     * @param data
+     * @param formatCode    数字格式，为空时保留原来的格式
+     */
+    public void updateLineDataCache(CTLineChart lineChart, int serIndex, long[] data, String formatCode) {
+        CTLineSer ctLineSer = lineChart.getSerArray(serIndex);
+        this.replaceVal(ctLineSer.getVal().getNumRef(), data, formatCode);
+    }
+
     /**
      * 更新饼图的 cat 缓存
      * @param pieChart
@@ -930,6 +1408,30 @@ public class PPTUtil {
         this.replaceVal(numRef, data);
     }
 
+    /**
+     * 更新饼图的缓存数据，直接写入数值，不需要先转换成字符串列表
+     * @param pieChart
+     * @param serIndex
+     * @param data
+     * @param formatCode    数字格式，如 "0.00"，为空时保留原来的格式
+     */
+    public void updatePieDataCache(CTPieChart pieChart, int serIndex, double[] data, String formatCode) {
+        CTPieSer ctPieSer = pieChart.getSerArray(serIndex);
+        this.replaceVal(ctPieSer.getVal().getNumRef(), data, formatCode);
+    }
+
+    /**
+     * 更新饼图的缓存数据，直接写入整数
+     * @param pieChart
+     * @param serIndex
+     * @param data
+     * @param formatCode    数字格式，为空时保留原来的格式
+     */
+    public void updatePieDataCache(CTPieChart pieChart, int serIndex, long[] data, String formatCode) {
+        CTPieSer ctPieSer = pieChart.getSerArray(serIndex);
+        this.replaceVal(ctPieSer.getVal().getNumRef(), data, formatCode);
+    }
+
     /**
      * 更新雷达图的 cat 缓存
      * @param radarChart
@@ -960,6 +1462,30 @@ public class PPTUtil {
         this.replaceVal(numRef, data);
     }
 
+    /**
+     * 更新雷达图的缓存数据，直接写入数值，不需要先转换成字符串列表
+     * @param radarChart
+     * @param serIndex
+     * @param data
+     * @param formatCode    数字格式，如 "0.00"，为空时保留原来的格式
+     */
+    public void updateRadarDataCache(CTRadarChart radarChart, int serIndex, double[] data, String formatCode) {
+        CTRadarSer ctRadarSer = radarChart.getSerArray(serIndex);
+        this.replaceVal(ctRadarSer.getVal().getNumRef(), data, formatCode);
+    }
+
+    /**
+     * 更新雷达图的缓存数据，直接写入整数
+     * @param radarChart
+     * @param serIndex
+     * @param data
+     * @param formatCode    数字格式，为空时保留原来的格式
+     */
+    public void updateRadarDataCache(CTRadarChart radarChart, int serIndex, long[] data, String formatCode) {
+        CTRadarSer ctRadarSer = radarChart.getSerArray(serIndex);
+        this.replaceVal(ctRadarSer.getVal().getNumRef(), data, formatCode);
+    }
+
     /**
      * 获取表格的行数
      * @param table
@@ -984,36 +1510,195 @@ public class PPTUtil {
      * @param text
      */
     public void setCellText(XSLFTableCell cell, String text) {
-//        cell.setText(text);
-        CTTableCell ctTableCell = (CTTableCell) cell.getXmlObject();
-        CTTextBody ctTextBody = ctTableCell.isSetTxBody() ? ctTableCell.getTxBody() : ctTableCell.addNewTxBody();
-        CTTextParagraph p = null;
-        if (ctTextBody.getPList().size() < 1) {
-            p = ctTextBody.addNewP();
-        } else {
-            p = ctTextBody.getPList().get(0);
-            // 删除多余的 p
-            if (ctTextBody.getPList().size() > 1) {
-                for (int i = 1; i < ctTextBody.getPList().size(); i++) {
-                    ctTextBody.removeP(i);
-                }
+        this.writeCellText((CTTableCell) cell.getXmlObject(), text);
+    }
+
+    /**
+     * 设置单元格的多行文本，每行一个段落
+     * 已有的段落按顺序复用，不够时复制第一个段落的样式，多余的段落会被删除
+     * @param cell
+     * @param lines
+     */
+    public void setCellTextLines(XSLFTableCell cell, List<String> lines) {
+        this.writeCellLines((CTTableCell) cell.getXmlObject(), lines);
+    }
+
+    /**
+     * 从第一行开始把二维数组填入表格，超出表格的数据会被忽略
+     * @param table
+     * @param data
+     * @return 填入的行数
+     */
+    public int fillTable(XSLFTable table, String[][] data) {
+        return this.fillTable(table, 0, Arrays.asList(data).iterator(), false);
+    }
+
+    /**
+     * 从 startRow 行开始把二维数组填入表格
+     * @param table
+     * @param startRow
+     * @param data
+     * @param fitRows   为 true 时行数按数据调整：数据多时以最后一行为模板追加行，数据少时删除多余的行
+     * @return 填入的行数
+     */
+    public int fillTable(XSLFTable table, int startRow, String[][] data, boolean fitRows) {
+        return this.fillTable(table, startRow, Arrays.asList(data).iterator(), fitRows);
+    }
+
+    /**
+     * 从 startRow 行开始逐行填入表格，每行数据多于列数时忽略多出的部分，少于列数时其余单元格置空
+     * 单元格保留第一个段落的第一个 run 及其样式，其余段落和 run 会被删除，追加的行复制最后一行的 xml。
+     * 追加行直接修改 xml，不经过 POI 的 addRow、addCell（后者每添加一个单元格都要遍历整张表格，几千行时需要数秒），
+     * 因此之前获取的 XSLFTable 对象的 getRows、getCell 中没有追加的行，需要继续修改新行时请重新读取 ppt。
+     * fitRows 为 true 时表格至少要有一行作为追加行的模板，否则抛出 IllegalArgumentException
+     * @param table
+     * @param startRow
+     * @param rows
+     * @param fitRows   为 true 时行数按数据调整：数据多时以最后一行为模板追加行，数据少时删除多余的行
+     * @return 填入的行数
+     */
+    public int fillTable(XSLFTable table, int startRow, Iterator<String[]> rows, boolean fitRows) {
+        long start = Metrics.startTimer(metrics);
+        int filled = this.writeTableRows(table, startRow, rows, fitRows);
+        Metrics.stopTimer(metrics, Phase.TABLE_FILL, start);
+        return filled;
+    }
+
+    // 逐行填入表格，返回填入的行数
+    @SuppressWarnings("deprecation")  // 按下标访问行和单元格，getTrList 每次 get 都要从头查找
+    private int writeTableRows(XSLFTable table, int startRow, Iterator<String[]> rows, boolean fitRows) {
+        CTTableRow[] trs = table.getCTTable().getTrArray();
+        if (fitRows && trs.length == 0 && rows.hasNext()) {
+            throw new IllegalArgumentException("table has no rows to use as template");
+        }
+        int rowNum = startRow;
+
+        // 先填已有的行
+        while (rowNum < trs.length && rows.hasNext()) {
+            CTTableCell[] tcs = trs[rowNum].getTcArray();
+            String[] values = rows.next();
+            for (int i = 0; i < tcs.length; i++) {
+                this.writeCellText(tcs[i], values != null && i < values.length ? values[i] : null);
             }
+            rowNum++;
         }
 
-        CTRegularTextRun r = null;
-        if (p.getRList().size() < 1) {
-            r = p.addNewR();
+        if (!fitRows) {
+            return rowNum - startRow;
+        }
+
+        if (rows.hasNext() && trs.length > 0) {
+            // 以最后一行为模板追加行
+            CTTable ctTable = table.getCTTable();
+            CTTableRow templateTr = trs[trs.length - 1];
+            int appended = 0;
+            while (rows.hasNext()) {
+                this.addTableRow(ctTable, templateTr, rows.next());
+                appended++;
+            }
+            rowNum += appended;
+            Metrics.increment(metrics, Counter.XML_NODES_CREATED, appended);
         } else {
-            r = p.getRList().get(0);
-            // 删除多余的 r
-            if (p.getRList().size() > 1) {
-                for (int i = 1; i < p.getRList().size(); i++) {
-                    p.removeR(i);
-                }
+            // 删除多余的行，之前追加的行不在 getRows 中，直接从 xml 中删除，其余的行通过 POI 删除
+            int from = Math.max(rowNum, 1);
+            int wrappedRows = table.getRows().size();
+            removeNodes(trs, Math.max(from, wrappedRows));
+            for (int i = Math.min(trs.length, wrappedRows) - 1; i >= from; i--) {
+                table.removeRow(i);
             }
         }
+        return rowNum - startRow;
+    }
+
+    /**
+     * 分页填充表格：当前幻灯片放不下的行复制模板幻灯片继续填充，新幻灯片依次插入到模板幻灯片之后
+     * 每页保留表格的前 headerRows 行作为表头，之后每页最多填入 rowsPerPage 行数据，最后一页删除多余的行。
+     * 复制幻灯片时使用填充前模板幻灯片 xml 的副本，图片、图表等部件在各页之间共用，备注页不复制。
+     * @param templateSlide 表格所在的幻灯片
+     * @param table
+     * @param headerRows    每页重复的表头行数
+     * @param rows
+     * @param rowsPerPage   每页的数据行数
+     * @return 填充了数据的所有幻灯片，第一个为模板幻灯片
+     */
+    public List<XSLFSlide> paginateTable(XSLFSlide templateSlide, XSLFTable table, int headerRows, Iterator<String[]> rows, int rowsPerPage) {
+        checkNotInParallelPhase();
+        if (rowsPerPage < 1) {
+            throw new IllegalArgumentException("rowsPerPage must be positive: " + rowsPerPage);
+        }
+        if (table.getCTTable().sizeOfTrArray() == 0) {
+            throw new IllegalArgumentException("table has no rows");
+        }
+
+        SlideCloner cloner = new SlideCloner(pptx, templateSlide);   // 在填充前保存模板
+        int tableId = table.getShapeId();
+        int templateIndex = pptx.getSlides().indexOf(templateSlide);
+
+        List<XSLFSlide> pages = new ArrayList<XSLFSlide>();
+        pages.add(templateSlide);
+        this.fillTable(table, headerRows, new PageIterator(rows, rowsPerPage), true);
+        while (rows.hasNext()) {
+            XSLFSlide page = cloner.cloneSlide();
+            pptx.setSlideOrder(page, templateIndex + pages.size());
+            invalidateDeckIndex();
+            XSLFTable pageTable = (XSLFTable) getSlideIndex(page).getShapeById(tableId);
+            this.fillTable(pageTable, headerRows, new PageIterator(rows, rowsPerPage), true);
+            pages.add(page);
+        }
+        return pages;
+    }
+
+    /**
+     * 分页填充表格，每页的行数按表格行高计算：表头行的高度之和加上数据行的高度之和不超过 maxTableHeight
+     * 数据行的高度取模板中第一行数据行的高度，单位 磅；幻灯片高度可以通过 getPPTX().getPageSize() 获取
+     * @param templateSlide
+     * @param table
+     * @param headerRows
+     * @param rows
+     * @param maxTableHeight    表格的最大高度，单位 磅
+     * @return 填充了数据的所有幻灯片，第一个为模板幻灯片
+     */
+    public List<XSLFSlide> paginateTableByHeight(XSLFSlide templateSlide, XSLFTable table, int headerRows, Iterator<String[]> rows, double maxTableHeight) {
+        List<XSLFTableRow> tableRows = table.getRows();
+        if (tableRows.isEmpty()) {
+            throw new IllegalArgumentException("table has no rows");
+        }
+        double headerHeight = 0;
+        for (int i = 0; i < headerRows && i < tableRows.size(); i++) {
+            headerHeight += tableRows.get(i).getHeight();
+        }
+        double rowHeight = tableRows.get(Math.min(headerRows, tableRows.size() - 1)).getHeight();
+        int rowsPerPage = rowHeight > 0 ? (int) ((maxTableHeight - headerHeight) / rowHeight) : Integer.MAX_VALUE;
+        if (rowsPerPage < 1) {
+            logger.warn("table header is higher than " + maxTableHeight + ", one row per page");
+            rowsPerPage = 1;
+        }
+        return this.paginateTable(templateSlide, table, headerRows, rows, rowsPerPage);
+    }
+
+    // 每页最多取 limit 行数据
+    private static class PageIterator implements Iterator<String[]> {
+        private final Iterator<String[]> rows;
+        private int remaining;
+
+        PageIterator(Iterator<String[]> rows, int limit) {
+            this.rows = rows;
+            this.remaining = limit;
+        }
 
-        r.setT(text);   // 设置文本
+        @Override
+        public boolean hasNext() {
+            return remaining > 0 && rows.hasNext();
+        }
+
+        @Override
+        public String[] next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            return rows.next();
+        }
     }
 
     /**
@@ -1023,6 +1708,16 @@ public class PPTUtil {
      * @param lineColorHex
      */
     public void setCellBorder(XSLFTableCell cell, String lineType, String lineColorHex) {
+        setCellBorder(cell, lineType, toColor(lineColorHex));
+    }
+
+    /**
+     * 设置该单元格所有的边框颜色和线条
+     * @param cell
+     * @param lineType
+     * @param lineColor
+     */
+    public void setCellBorder(XSLFTableCell cell, String lineType, PPTColor lineColor) {
         CTTableCellProperties cellProperties = getCellProperties(cell);
 
         if (lineType == null || "".equals(lineType)) {
@@ -1031,10 +1726,10 @@ public class PPTUtil {
             cellProperties.unsetLnR();
             cellProperties.unsetLnL();
         } else {
-            setCellBorder(getCTLineProperties(cellProperties, "left"), lineType, lineColorHex);
-            setCellBorder(getCTLineProperties(cellProperties, "right"), lineType, lineColorHex);
-            setCellBorder(getCTLineProperties(cellProperties, "top"), lineType, lineColorHex);
-            setCellBorder(getCTLineProperties(cellProperties, "bottom"), lineType, lineColorHex);
+            setCellBorder(getCTLineProperties(cellProperties, "left"), lineType, lineColor);
+            setCellBorder(getCTLineProperties(cellProperties, "right"), lineType, lineColor);
+            setCellBorder(getCTLineProperties(cellProperties, "top"), lineType, lineColor);
+            setCellBorder(getCTLineProperties(cellProperties, "bottom"), lineType, lineColor);
         }
     }
 
@@ -1044,10 +1739,19 @@ public class PPTUtil {
      * @param colorHex
      */
     public void setCellColor(XSLFTableCell cell, String colorHex) {
+        setCellColor(cell, toColor(colorHex));
+    }
+
+    /**
+     * 设置 cell 的颜色
+     * @param cell
+     * @param color
+     */
+    public void setCellColor(XSLFTableCell cell, PPTColor color) {
         List<XSLFTextParagraph> textParagraphs = cell.getTextParagraphs();
         for (XSLFTextParagraph textParagraph : textParagraphs) {
             for (XSLFTextRun textRun : textParagraph.getTextRuns()) {
-                setTextColor(textRun, colorHex);
+                setTextColor(textRun, color);
             }
         }
     }
@@ -1142,11 +1846,21 @@ public class PPTUtil {
      * @param pts
      */
     public void setCellTextStyle(XSLFTableCell cell, ParagraphTextStyle pts) {
-        List<XSLFTextParagraph> textParagraphs = cell.getTextParagraphs();
-        for (XSLFTextParagraph textParagraph : textParagraphs) {
-            for (XSLFTextRun textRun : textParagraph.getTextRuns()) {
-                setTextStyle(textRun, pts);
-            }
+        setCellTextStyle(cell, compileTextStyle(pts));
+    }
+
+    /**
+     * 设置单元格文本样式，直接修改单元格的 xml，也会作用到 XSLFTableCell 创建后新增的 run 上
+     * @param cell
+     * @param style
+     */
+    public void setCellTextStyle(XSLFTableCell cell, CompiledTextStyle style) {
+        CTTextBody txBody = ((CTTableCell) cell.getXmlObject()).getTxBody();
+        if (txBody == null) {
+            return;
+        }
+        for (CTTextParagraph paragraph : txBody.getPList()) {
+            style.applyTo(paragraph);
         }
     }
 
@@ -1196,6 +1910,17 @@ public class PPTUtil {
      * @param lineColorHex
      */
     public void setCellBorder(XSLFTableCell cell, String posStr, String lineType, String lineColorHex) {
+        setCellBorder(cell, posStr, lineType, toColor(lineColorHex));
+    }
+
+    /**
+     * 设置单元格某一个方向上的线条和颜色
+     * @param cell
+     * @param posStr
+     * @param lineType
+     * @param lineColor
+     */
+    public void setCellBorder(XSLFTableCell cell, String posStr, String lineType, PPTColor lineColor) {
         CTTableCellProperties cellProperties = getCellProperties(cell);
 
         if (lineType == null || "".equals(lineType)) {
@@ -1206,7 +1931,7 @@ public class PPTUtil {
 
         CTLineProperties ctLineProperties = getCTLineProperties(cellProperties, posStr);
 
-        setCellBorder(ctLineProperties, lineType, lineColorHex);    // 设置线条和颜色
+        setCellBorder(ctLineProperties, lineType, lineColor);    // 设置线条和颜色
     }
 
     /**
@@ -1215,10 +1940,18 @@ public class PPTUtil {
      * @param fillColorHex
      */
     public void setCellFillColor(XSLFTableCell cell, String fillColorHex) {
-        CTTableCell ctTableCell = (CTTableCell) cell.getXmlObject();
-        CTTableCellProperties tcPr = ctTableCell.getTcPr();
+        setCellFillColor(cell, toColor(fillColorHex));
+    }
+
+    /**
+     * 设置单元格的填充颜色
+     * @param cell
+     * @param fillColor
+     */
+    public void setCellFillColor(XSLFTableCell cell, PPTColor fillColor) {
+        CTTableCellProperties tcPr = getCellProperties(cell);
 
-        if (fillColorHex == null || "".equals(fillColorHex)) {    // 如果 fillColor 为空，那么就是无填充
+        if (fillColor == null) {    // 如果 fillColor 为空，那么就是无填充
             if (!tcPr.isSetNoFill()) {
                 tcPr.addNewNoFill();
             }
@@ -1226,13 +1959,118 @@ public class PPTUtil {
                 tcPr.unsetSolidFill();
             }
         } else {
-            tcPr.unsetNoFill();
+            if (tcPr.isSetNoFill()) {
+                tcPr.unsetNoFill();
+            }
             CTSolidColorFillProperties fillProperties = tcPr.isSetSolidFill() ? tcPr.getSolidFill() : tcPr.addNewSolidFill();
-            CTSRgbColor ctsRgbColor = fillProperties.isSetSrgbClr() ? fillProperties.getSrgbClr() : fillProperties.addNewSrgbClr();
-            ctsRgbColor.setVal(hexToByteArray(fillColorHex.substring(1)));
+            fillColor.applyTo(fillProperties);
+        }
+    }
+
+    /**
+     * 把单元格样式编译成可复用的 CompiledCellStyle，同一个样式要应用到大量单元格时先编译一次
+     * @param tcs
+     * @return
+     */
+    public CompiledCellStyle compileCellStyle(TableCellStyle tcs) {
+        CompiledTextStyle textStyle = tcs.getTextStyle() == null ? null : compileTextStyle(tcs.getTextStyle());
+
+        // 填充
+        boolean setFill = tcs.getFillColorHex() != null;
+        CTSolidColorFillProperties fill = null;
+        if (setFill && !"".equals(tcs.getFillColorHex())) {
+            fill = CTSolidColorFillProperties.Factory.newInstance();
+            PPTColor.valueOf(tcs.getFillColorHex()).applyTo(fill);
+        }
+
+        // 边框
+        boolean[] borderPositions = new boolean[4];
+        CTLineProperties border = null;
+        if (tcs.getBorderLineType() != null) {
+            String[] positions = tcs.getBorderPositions() == null
+                    ? new String[] {"left", "right", "top", "bottom"} : tcs.getBorderPositions();
+            for (String posStr : positions) {
+                switch (posStr.toLowerCase()) {
+                    case "left" : borderPositions[CompiledCellStyle.LEFT] = true; break;
+                    case "right" : borderPositions[CompiledCellStyle.RIGHT] = true; break;
+                    case "top" : borderPositions[CompiledCellStyle.TOP] = true; break;
+                    case "bottom" : borderPositions[CompiledCellStyle.BOTTOM] = true; break;
+                    default: {
+                        logger.warn(posStr + " position not exists! position include ['left', 'right', 'top', 'bottom'");
+                    }
+                }
+            }
+            if (!"".equals(tcs.getBorderLineType())) {
+                border = CTLineProperties.Factory.newInstance();
+                if (tcs.getBorderColorHex() != null && !"".equals(tcs.getBorderColorHex())) {
+                    PPTColor.valueOf(tcs.getBorderColorHex()).applyTo(border.addNewSolidFill());
+                }
+                STPresetLineDashVal.Enum dash = STPresetLineDashVal.Enum.forString(tcs.getBorderLineType());
+                border.addNewPrstDash().setVal(dash == null ? STPresetLineDashVal.SOLID : dash);
+            }
+        }
+
+        return new CompiledCellStyle(textStyle, setFill, fill, borderPositions, border);
+    }
+
+    /**
+     * 设置表格中一个区域内单元格的样式，行列范围都包含首尾，超出表格的部分忽略
+     * 直接修改表格的 xml，fillTable 追加的行也会生效
+     * @param table
+     * @param rowFrom
+     * @param rowTo
+     * @param colFrom
+     * @param colTo
+     * @param tcs
+     */
+    public void styleRange(XSLFTable table, int rowFrom, int rowTo, int colFrom, int colTo, TableCellStyle tcs) {
+        styleRange(table, rowFrom, rowTo, colFrom, colTo, compileCellStyle(tcs));
+    }
+
+    /**
+     * 使用编译后的样式设置表格中一个区域内单元格的样式，行列范围都包含首尾，超出表格的部分忽略
+     * @param table
+     * @param rowFrom
+     * @param rowTo
+     * @param colFrom
+     * @param colTo
+     * @param style
+     */
+    @SuppressWarnings("deprecation")  // 按下标访问行和单元格，getTrList 每次 get 都要从头查找
+    public void styleRange(XSLFTable table, int rowFrom, int rowTo, int colFrom, int colTo, CompiledCellStyle style) {
+        if (rowFrom < 0 || colFrom < 0 || rowFrom > rowTo || colFrom > colTo) {
+            logger.warn("invalid range: rows " + rowFrom + "-" + rowTo + ", cols " + colFrom + "-" + colTo);
+            return;
+        }
+        CTTableRow[] trs = table.getCTTable().getTrArray();
+        for (int i = rowFrom; i <= rowTo && i < trs.length; i++) {
+            CTTableCell[] tcs = trs[i].getTcArray();
+            for (int j = colFrom; j <= colTo && j < tcs.length; j++) {
+                style.applyTo(tcs[j]);
+            }
         }
     }
 
+    /**
+     * 设置表格某一行的样式
+     * @param table
+     * @param rowNum
+     * @param tcs
+     */
+    public void styleRow(XSLFTable table, int rowNum, TableCellStyle tcs) {
+        styleRange(table, rowNum, rowNum, 0, Integer.MAX_VALUE - 1, tcs);
+    }
+
+    /**
+     * 设置表格某一列的样式
+     * @param table
+     * @param colNum
+     * @param tcs
+     */
+    public void styleColumn(XSLFTable table, int colNum, TableCellStyle tcs) {
+        styleRange(table, 0, Integer.MAX_VALUE - 1, colNum, colNum, tcs);
+    }
+
     /**
      * 获取表格某行
      * @param table
@@ -1261,8 +2099,84 @@ public class PPTUtil {
         return row.getCells();
     }
 
+    // 复制模板行的 xml 追加到表格末尾并写入文本
+    @SuppressWarnings("deprecation")  // 单元格数组按下标写入
+    private void addTableRow(CTTable ctTable, CTTableRow templateTr, String[] values) {
+        CTTableRow tr = ctTable.addNewTr();
+        tr.set(templateTr);
+        if (tr.isSetExtLst()) {
+            tr.unsetExtLst();   // 扩展中有 PowerPoint 生成的行 id，不能重复
+        }
+        CTTableCell[] tcs = tr.getTcArray();
+        for (int i = 0; i < tcs.length; i++) {
+            this.writeCellText(tcs[i], values != null && i < values.length ? values[i] : null);
+        }
+    }
+
+    // 把单元格的文本替换为一个段落、一个 run
+    private void writeCellText(CTTableCell tc, String text) {
+        this.writeCellLines(tc, Collections.singletonList(text));
+    }
+
+    // 把单元格的文本替换为多个段落，每个段落保留第一个 run 及其样式，删除多余的段落
+    @SuppressWarnings("deprecation")  // removeNodes 需要节点数组
+    private void writeCellLines(CTTableCell tc, List<String> lines) {
+        CTTextBody body = tc.isSetTxBody() ? tc.getTxBody() : tc.addNewTxBody();
+        if (body.getBodyPr() == null) {
+            body.addNewBodyPr();
+        }
+        int lineCount = Math.max(lines.size(), 1);
+        CTTextParagraph[] ps = body.getPArray();
+        if (ps.length == 0) {
+            ps = new CTTextParagraph[]{body.addNewP()};
+        }
+        removeNodes(ps, lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            CTTextParagraph p;
+            if (i < ps.length) {
+                p = ps[i];
+            } else {
+                p = body.addNewP();
+                p.set(ps[0]);   // 新的段落沿用第一个段落的样式
+            }
+            this.writeParagraphText(p, i < lines.size() ? lines.get(i) : null);
+        }
+    }
+
+    // 把段落的文本替换为一个 run，保留第一个 run 的样式，删除多余的 run、换行和域
+    @SuppressWarnings("deprecation")  // removeNodes 需要节点数组
+    private void writeParagraphText(CTTextParagraph p, String text) {
+        if (text == null) {
+            text = "";
+        }
+        CTRegularTextRun[] rs = p.getRArray();
+        CTRegularTextRun r = rs.length == 0 ? p.addNewR() : rs[0];
+        removeNodes(rs, 1);
+        if (p.sizeOfBrArray() > 0) {
+            removeNodes(p.getBrArray(), 0);
+        }
+        if (p.sizeOfFldArray() > 0) {
+            removeNodes(p.getFldArray(), 0);
+        }
+
+        if (!text.equals(r.getT())) {
+            r.setT(text);
+        }
+    }
+
+    // 删除数组中从 from 开始的节点
+    // xmlbeans 的 removeXxx(i) 每次都要从头数到第 i 个节点，逐个删除是平方级的，通过 cursor 直接删除节点是线性的
+    private static void removeNodes(XmlObject[] nodes, int from) {
+        for (int i = from; i < nodes.length; i++) {
+            XmlCursor cursor = nodes[i].newCursor();
+            cursor.removeXml();
+            cursor.dispose();
+        }
+    }
+
     // 替换 Cat 缓存
     private void replaceCat(CTAxDataSource cat, List<List<String>> data) {
+        long start = Metrics.startTimer(metrics);
         if (cat.isSetNumRef()) {
             this.updateCat(cat.getNumRef(), data);
         } else if (cat.isSetStrRef()) {
@@ -1270,154 +2184,205 @@ public class PPTUtil {
         } else if (cat.isSetMultiLvlStrRef()) {
             this.updateCat(cat.getMultiLvlStrRef(), data);
         }
+        Metrics.stopTimer(metrics, Phase.CHART_UPDATE, start);
     }
 
     // 替换数据
     private void replaceVal(CTNumRef numRef, List<String> data) {
-        numRef.unsetNumCache();
+        long start = Metrics.startTimer(metrics);
+        CTNumData ctNumData = numRef.isSetNumCache() ? numRef.getNumCache() : numRef.addNewNumCache();
+        this.writeNumPoints(ctNumData, data);
+        Metrics.stopTimer(metrics, Phase.CHART_UPDATE, start);
+    }
+
+    // 替换数据，double 数组版本
+    private void replaceVal(CTNumRef numRef, final double[] data, String formatCode) {
+        long start = Metrics.startTimer(metrics);
+        CTNumData ctNumData = this.getNumCache(numRef, formatCode);
+        this.writeNumPoints(ctNumData, new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                double value = data[index];
+                return Double.isNaN(value) || Double.isInfinite(value) ? null : formatNumber(value);   // NaN 和无穷大作为空值，不写入该点
+            }
 
-        CTNumData ctNumData = numRef.addNewNumCache();
-        ctNumData.addNewPtCount().setVal(data.size());
+            @Override
+            public int size() {
+                return data.length;
+            }
+        });
+        Metrics.stopTimer(metrics, Phase.CHART_UPDATE, start);
+    }
+
+    // 替换数据，long 数组版本
+    private void replaceVal(CTNumRef numRef, final long[] data, String formatCode) {
+        long start = Metrics.startTimer(metrics);
+        CTNumData ctNumData = this.getNumCache(numRef, formatCode);
+        this.writeNumPoints(ctNumData, new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return Long.toString(data[index]);
+            }
 
-        for (int i = 0; i < data.size(); i++) {
-            CTNumVal ctNumVal = ctNumData.addNewPt();
-            ctNumVal.setIdx(i);
-            ctNumVal.setV(data.get(i));
-        }
+            @Override
+            public int size() {
+                return data.length;
+            }
+        });
+        Metrics.stopTimer(metrics, Phase.CHART_UPDATE, start);
     }
 
-    // 更新cat中多系列的缓存
-    private void updateCat(CTMultiLvlStrRef multiLvlStrRef, List<List<String>> data) {
-        multiLvlStrRef.unsetMultiLvlStrCache();
+    // 获取 numCache，formatCode 不为空时更新数字格式，否则保留原来的数字格式
+    private CTNumData getNumCache(CTNumRef numRef, String formatCode) {
+        CTNumData ctNumData = numRef.isSetNumCache() ? numRef.getNumCache() : numRef.addNewNumCache();
+        if (formatCode != null && !"".equals(formatCode) && !formatCode.equals(ctNumData.getFormatCode())) {
+            ctNumData.setFormatCode(formatCode);
+        }
+        return ctNumData;
+    }
 
-        CTMultiLvlStrData ctMultiLvlStrData = multiLvlStrRef.addNewMultiLvlStrCache();
-        ctMultiLvlStrData.addNewPtCount().setVal(data.get(0).size());
+    // 数值转成 xml 中的文本，整数不带小数部分
+    private static String formatNumber(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
 
+    // 原地更新 numCache 中的 pt：复用已有的 pt，值没变时不写入，只在末尾新增或删除 pt，值为 null 的点不写入
+    @SuppressWarnings("deprecation")  // 按下标复用已有的 pt，getPtList 每次 get 都要从头查找
+    private void writeNumPoints(CTNumData ctNumData, List<String> data) {
+        CTNumVal[] pts = ctNumData.getPtArray();
+        int count = 0;  // 已写入的 pt 个数
         for (int i = 0; i < data.size(); i++) {
-            CTLvl ctLvl = ctMultiLvlStrData.addNewLvl();
-            for (int j = 0; j < data.get(i).size(); j++) {
-                CTStrVal ctStrVal = ctLvl.addNewPt();
-                ctStrVal.setV(data.get(i).get(j));
-                ctStrVal.setIdx(j);
+            String value = data.get(i);
+            if (value == null) {
+                continue;
+            }
+            CTNumVal ctNumVal = count < pts.length ? pts[count] : ctNumData.addNewPt();
+            if (count >= pts.length || ctNumVal.getIdx() != i) {
+                ctNumVal.setIdx(i);
             }
+            if (count >= pts.length || !value.equals(ctNumVal.getV())) {
+                ctNumVal.setV(value);
+            }
+            count++;
         }
+        Metrics.increment(metrics, Counter.XML_NODES_CREATED, Math.max(count - pts.length, 0));
+        removeNodes(pts, count);    // 删除多余的 pt
+        setPtCount(ctNumData.isSetPtCount() ? ctNumData.getPtCount() : ctNumData.addNewPtCount(), data.size());
     }
 
-    // 更新 strRef 类型的 cat 缓存
-    private void updateCat(CTStrRef strRef, List<List<String>> data) {
-
-        // 重新设置 pt
-        strRef.unsetStrCache();
-        CTStrData ctStrData = strRef.addNewStrCache();
-        ctStrData.addNewPtCount().setVal(data.get(0).size());
-        for (int i = 0; i < data.get(0).size(); i++) {
-            CTStrVal ctStrVal = ctStrData.addNewPt();
-            ctStrVal.setV(data.get(0).get(i));
-            ctStrVal.setIdx(i);
+    // 原地更新 strCache 中的 pt，值为 null 的点不写入
+    @SuppressWarnings("deprecation")  // 按下标复用已有的 pt
+    private void writeStrPoints(CTStrData ctStrData, List<String> data) {
+        CTStrVal[] pts = ctStrData.getPtArray();
+        int count = 0;  // 已写入的 pt 个数
+        for (int i = 0; i < data.size(); i++) {
+            String value = data.get(i);
+            if (value == null) {
+                continue;
+            }
+            boolean isNew = count >= pts.length;
+            setStrVal(isNew ? ctStrData.addNewPt() : pts[count], i, value, isNew);
+            count++;
         }
-
-//        // 引用原来的 pt
-//        CTStrData strCache = strRef.getStrCache();
-//        List<CTStrVal> ptList = strCache.getPtList();
-//        for (int i = 0; i < ptList.size(); i++) {
-//            ptList.get(i).setV(data.get(0).get(i));
-//        }
+        Metrics.increment(metrics, Counter.XML_NODES_CREATED, Math.max(count - pts.length, 0));
+        removeNodes(pts, count);
+        setPtCount(ctStrData.isSetPtCount() ? ctStrData.getPtCount() : ctStrData.addNewPtCount(), data.size());
     }
 
-    // 更新 numRef 类型的 cat 缓存
-    private void updateCat(CTNumRef numRef, List<List<String>> data) {
-        // 重新设置 pt
-        numRef.unsetNumCache();
-        CTNumData ctNumData = numRef.addNewNumCache();
-        ctNumData.addNewPtCount().setVal(data.get(0).size());
-        for (int i = 0; i < data.get(0).size(); i++) {
-            CTNumVal ctNumVal = ctNumData.addNewPt();
-            ctNumVal.setV(data.get(0).get(i));
-            ctNumVal.setIdx(i);
+    // 原地更新多层 cat 中某一层的 pt，值为 null 的点不写入
+    @SuppressWarnings("deprecation")  // 按下标复用已有的 pt
+    private void writeLvlPoints(CTLvl ctLvl, List<String> data) {
+        CTStrVal[] pts = ctLvl.getPtArray();
+        int count = 0;  // 已写入的 pt 个数
+        for (int i = 0; i < data.size(); i++) {
+            String value = data.get(i);
+            if (value == null) {
+                continue;
+            }
+            boolean isNew = count >= pts.length;
+            setStrVal(isNew ? ctLvl.addNewPt() : pts[count], i, value, isNew);
+            count++;
         }
-
-
-//        // 引用原来的 pt
-//        CTNumData numCache = numRef.getNumCache();
-//        List<CTNumVal> ptList = numCache.getPtList();
-//        for (int i = 0; i < ptList.size(); i++) {
-//            ptList.get(i).setV(data.get(0).get(i));
-//        }
+        Metrics.increment(metrics, Counter.XML_NODES_CREATED, Math.max(count - pts.length, 0));
+        removeNodes(pts, count);
     }
 
+    // 设置 pt 的 idx 和值，值没变时不写入
+    private static void setStrVal(CTStrVal ctStrVal, int idx, String value, boolean isNew) {
+        if (isNew || ctStrVal.getIdx() != idx) {
+            ctStrVal.setIdx(idx);
+        }
+        if (isNew || !value.equals(ctStrVal.getV())) {
+            ctStrVal.setV(value);
+        }
+    }
 
-    // 获取 plotArea
-    private CTPlotArea getChartPlotArea(XSLFChart chart) {
-        return chart.getCTChart().getPlotArea();
+    private static void setPtCount(CTUnsignedInt ptCount, int count) {
+        if (ptCount.getVal() != count) {
+            ptCount.setVal(count);
+        }
     }
 
-    // 获取段落下特定索引的 run 的值
-    private String getRunsT(XSLFTextParagraph paragraph, int start, int end) {
-        List<XSLFTextRun> textRuns = paragraph.getTextRuns();
-        StringBuilder t = new StringBuilder();
-        for (int i = start; i < end; i++) {
-            t.append(textRuns.get(i).getRawText());
+    // 更新cat中多系列的缓存
+    @SuppressWarnings("deprecation")  // 按下标复用已有的层
+    private void updateCat(CTMultiLvlStrRef multiLvlStrRef, List<List<String>> data) {
+        CTMultiLvlStrData ctMultiLvlStrData = multiLvlStrRef.isSetMultiLvlStrCache()
+                ? multiLvlStrRef.getMultiLvlStrCache() : multiLvlStrRef.addNewMultiLvlStrCache();
+
+        CTLvl[] lvls = ctMultiLvlStrData.getLvlArray();
+        for (int i = 0; i < data.size(); i++) {
+            this.writeLvlPoints(i < lvls.length ? lvls[i] : ctMultiLvlStrData.addNewLvl(), data.get(i));
         }
-        return t.toString();
+        removeNodes(lvls, data.size());    // 删除多余的层
+        setPtCount(ctMultiLvlStrData.isSetPtCount() ? ctMultiLvlStrData.getPtCount() : ctMultiLvlStrData.addNewPtCount(),
+                data.get(0).size());
     }
 
-    // 设置 run 的值
-    private void setText(XSLFTextRun run, String t) {
-        run.setText(t);
+    // 更新 strRef 类型的 cat 缓存
+    private void updateCat(CTStrRef strRef, List<List<String>> data) {
+        CTStrData ctStrData = strRef.isSetStrCache() ? strRef.getStrCache() : strRef.addNewStrCache();
+        this.writeStrPoints(ctStrData, data.get(0));
     }
 
-    // 获取 word 在段落中出现第一次的 run 的索引
-    private int getRunIndex(XSLFTextParagraph paragraph, String word) {
-        List<CTRegularTextRun> rList = paragraph.getXmlObject().getRList();
-        for (int i = 0; i < rList.size(); i++) {
+    // 更新 numRef 类型的 cat 缓存
+    private void updateCat(CTNumRef numRef, List<List<String>> data) {
+        CTNumData ctNumData = numRef.isSetNumCache() ? numRef.getNumCache() : numRef.addNewNumCache();
+        this.writeNumPoints(ctNumData, data.get(0));
+    }
 
-            String text = rList.get(i).getT();
-            if (text.contains(word)) {
-                return i;
-            }
-        }
-        return -1;
+    // 获取 plotArea
+    private CTPlotArea getChartPlotArea(XSLFChart chart) {
+        return chart.getCTChart().getPlotArea();
     }
 
     // 设置 rPr 的字体
     private void setRPRFontFamily(CTTextCharacterProperties rPr, String chinesefontFamily, String westernFontFamily) {
-        this.setRPRChineseFontFamily(rPr, chinesefontFamily);
+        this.setRPREastAsianFonts(rPr, chinesefontFamily);
         this.setRPRWesternFontFamily(rPr, westernFontFamily);
     }
 
-    // 设置中文字体
+    // 设置中文字体，同时删除西文字体，西文使用主题字体
     private void setRPRChineseFontFamily(CTTextCharacterProperties rPr, String fontFamily) {
-        if (fontFamily == null || "".equals(fontFamily)) {
-            fontFamily = "宋体";
-        }
-
         if (rPr.isSetLatin()) {
             rPr.unsetLatin();
         }
+        this.setRPREastAsianFonts(rPr, fontFamily);
+    }
 
-        CTTextFont ea = rPr.isSetEa() ? rPr.getEa() : rPr.addNewEa();
-        ea.setTypeface(fontFamily);
-        ea.setPitchFamily(new Byte("34"));
-        ea.setCharset(new Byte("-122"));
-
-        CTTextFont cs = rPr.isSetCs() ? rPr.getCs() : rPr.addNewCs();
-        cs.setTypeface(fontFamily);
-        cs.setPitchFamily(new Byte("34"));
-        cs.setCharset(new Byte("-122"));
+    // 设置 ea 和 cs 字体
+    private void setRPREastAsianFonts(CTTextCharacterProperties rPr, String fontFamily) {
+        fontFamily = this.nullToDefault(fontFamily, "宋体");
+        fontRegistry.apply(rPr, FontRegistry.Script.EAST_ASIAN, fontFamily);
+        fontRegistry.apply(rPr, FontRegistry.Script.COMPLEX_SCRIPT, fontFamily);
     }
 
     // 设置西文字体
     private void setRPRWesternFontFamily(CTTextCharacterProperties rPr, String fontFamily) {
-        if (fontFamily == null || "".equals(fontFamily)) {
-            fontFamily = "宋体";
-        }
-        if (rPr.isSetLatin()) {
-            rPr.unsetLatin();
-        }
-        CTTextFont latin = rPr.isSetLatin() ? rPr.getLatin() : rPr.addNewLatin();
-        latin.setTypeface(fontFamily);
-        latin.setPitchFamily(new Byte("34"));
-        latin.setCharset(new Byte("-122"));
+        fontFamily = this.nullToDefault(fontFamily, "宋体");
+        fontRegistry.apply(rPr, FontRegistry.Script.LATIN, fontFamily);
     }
 
     // 获取新添加的 run
@@ -1479,24 +2444,30 @@ public class PPTUtil {
      */
     public byte[] hexToByteArray(String inHex) {
         int hexlen = inHex.length();
-        byte[] result;
-        if (hexlen % 2 == 1){   // 奇数的话，就在前面添加 0
-            hexlen++;
-            result = new byte[(hexlen / 2)];
-            inHex="0"+inHex;
-        }else { // 偶数
-            result = new byte[(hexlen / 2)];
-        }
-        int j=0;
-        for (int i = 0; i < hexlen; i += 2){
-            result[j] = this.hexToByte(inHex.substring(i, i + 2));
-            j++;
+        byte[] result = new byte[(hexlen + 1) / 2];
+        int i = 0;
+        int j = 0;
+        if (hexlen % 2 == 1) {  // 奇数的话，第一位单独作为一个字节，相当于在前面添加 0
+            result[j++] = (byte) this.hexToByte(inHex.charAt(i++));
+        }
+        for (; i < hexlen; i += 2) {
+            result[j++] = (byte) ((this.hexToByte(inHex.charAt(i)) << 4) | this.hexToByte(inHex.charAt(i + 1)));
         }
         return result;
     }
 
-    private byte hexToByte(String inHex) {
-        return (byte) Integer.parseInt(inHex, 16);
+    // 十六进制字符转数值
+    private int hexToByte(char hex) {
+        int digit = Character.digit(hex, 16);
+        if (digit < 0) {
+            throw new NumberFormatException("For input string: \"" + hex + "\"");
+        }
+        return digit;
+    }
+
+    // 颜色字符串转 PPTColor，空字符串为 null
+    private PPTColor toColor(String colorHex) {
+        return colorHex == null || "".equals(colorHex) ? null : PPTColor.valueOf(colorHex);
     }
 
 }
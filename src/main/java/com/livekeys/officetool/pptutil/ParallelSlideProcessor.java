@@ -0,0 +1,106 @@
+package com.livekeys.officetool.pptutil;
+
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 在 fork-join 线程池中并行处理同一份 ppt 的各张幻灯片
+ * 每张幻灯片上能做的操作见 SlideContext，所有幻灯片处理完成后才返回，之后才能调用 writePPT
+ */
+public class ParallelSlideProcessor {
+
+    /**
+     * 单张幻灯片的处理逻辑，会在 fork-join 线程中调用
+     */
+    public interface SlideTask {
+        void process(SlideContext context) throws Exception;
+    }
+
+    private final PPTUtil pptUtil;
+    private final ForkJoinPool pool;
+
+    public ParallelSlideProcessor(PPTUtil pptUtil) {
+        this(pptUtil, ForkJoinPool.commonPool());
+    }
+
+    public ParallelSlideProcessor(PPTUtil pptUtil, ForkJoinPool pool) {
+        this.pptUtil = pptUtil;
+        this.pool = pool;
+    }
+
+    /**
+     * 并行处理所有幻灯片，等待全部完成后返回
+     * 有幻灯片处理失败时抛出 IllegalStateException，cause 为第一个失败，其它失败作为 suppressed
+     * @param task
+     */
+    public void forEachSlide(SlideTask task) {
+        List<XSLFSlide> slides = pptUtil.getSlides();
+        List<SlideContext> contexts = new ArrayList<SlideContext>(slides.size());
+        for (int i = 0; i < slides.size(); i++) {
+            contexts.add(new SlideContext(pptUtil, slides.get(i), i));
+        }
+
+        Throwable[] failures = new Throwable[contexts.size()];
+        pptUtil.beginParallelPhase();
+        try {
+            pool.invoke(new SlideAction(task, contexts, failures, 0, contexts.size()));
+        } finally {
+            pptUtil.endParallelPhase();
+        }
+
+        IllegalStateException failure = null;
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] == null) {
+                continue;
+            }
+            if (failure == null) {
+                failure = new IllegalStateException("slide " + i + " failed", failures[i]);
+            } else {
+                failure.addSuppressed(failures[i]);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // 按幻灯片区间二分拆分的任务
+    private static class SlideAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SlideTask task;
+        private final List<SlideContext> contexts;
+        private final Throwable[] failures;     // 每张幻灯片的失败原因
+        private final int from;
+        private final int to;
+
+        private SlideAction(SlideTask task, List<SlideContext> contexts, Throwable[] failures, int from, int to) {
+            this.task = task;
+            this.contexts = contexts;
+            this.failures = failures;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    try {
+                        task.process(contexts.get(from));
+                    } catch (Exception e) {
+                        failures[from] = e;
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SlideAction(task, contexts, failures, from, mid),
+                    new SlideAction(task, contexts, failures, mid, to));
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.livekeys.officetool.pptutil;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFGroupShape;
+import org.apache.poi.xslf.usermodel.XSLFNotes;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFSheet;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFSlideMaster;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTableCell;
+import org.apache.poi.xslf.usermodel.XSLFTableRow;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 一组幻灯片（或备注页、版式、母版）中所有段落的遍历，包括组合内的文本和表格单元格内的段落
+ *
+ * 遍历时按需展开组合和表格，不预先收集 shape 或段落列表。
+ * 并行流按幻灯片拆分，同一张幻灯片内的段落由同一个线程按顺序处理。
+ * 遍历期间不能增删 shape 或表格行。
+ */
+public final class SheetParagraphs implements Iterable<XSLFTextParagraph> {
+
+    /**
+     * 段落的来源
+     */
+    public enum Source {
+        SLIDE,      // 幻灯片
+        NOTES,      // 备注页，只包括已经存在的备注页
+        LAYOUT,     // 版式
+        MASTER      // 母版
+    }
+
+    private final List<XSLFSheet> sheets;
+
+    SheetParagraphs(List<? extends XSLFSheet> sheets) {
+        this.sheets = Collections.unmodifiableList(new ArrayList<XSLFSheet>(sheets));
+    }
+
+    // 按来源收集整个 ppt 中需要遍历的页面，每张幻灯片后面紧跟它的备注页，每个母版后面紧跟它的版式
+    static SheetParagraphs of(XMLSlideShow pptx, Set<Source> sources) {
+        List<XSLFSheet> sheets = new ArrayList<XSLFSheet>();
+        if (sources.contains(Source.SLIDE) || sources.contains(Source.NOTES)) {
+            for (XSLFSlide slide : pptx.getSlides()) {
+                if (sources.contains(Source.SLIDE)) {
+                    sheets.add(slide);
+                }
+                XSLFNotes notes = sources.contains(Source.NOTES) ? slide.getNotes() : null;
+                if (notes != null) {
+                    sheets.add(notes);
+                }
+            }
+        }
+        if (sources.contains(Source.MASTER) || sources.contains(Source.LAYOUT)) {
+            for (XSLFSlideMaster master : pptx.getSlideMasters()) {
+                if (sources.contains(Source.MASTER)) {
+                    sheets.add(master);
+                }
+                if (sources.contains(Source.LAYOUT)) {
+                    Collections.addAll(sheets, master.getSlideLayouts());
+                }
+            }
+        }
+        return new SheetParagraphs(sheets);
+    }
+
+    /**
+     * 获取要遍历的页面
+     * @return
+     */
+    public List<XSLFSheet> getSheets() {
+        return sheets;
+    }
+
+    @Override
+    public Iterator<XSLFTextParagraph> iterator() {
+        return new ParagraphIterator(sheets, 0, sheets.size());
+    }
+
+    @Override
+    public Spliterator<XSLFTextParagraph> spliterator() {
+        return new ParagraphSpliterator(sheets, 0, sheets.size());
+    }
+
+    /**
+     * 获取段落流，parallel 为 true 时按页面并行处理
+     * @param parallel
+     * @return
+     */
+    public Stream<XSLFTextParagraph> stream(boolean parallel) {
+        return StreamSupport.stream(spliterator(), parallel);
+    }
+
+    // 深度优先遍历 [from, to) 页面内的段落
+    private static final class ParagraphIterator implements Iterator<XSLFTextParagraph> {
+        private final List<XSLFSheet> sheets;
+        private int sheetIndex;
+        private final int end;
+
+        private final Deque<Iterator<XSLFShape>> shapes = new ArrayDeque<Iterator<XSLFShape>>();  // 当前页面及各层组合的 shape
+        private Iterator<XSLFTableRow> rows;            // 当前表格的行
+        private Iterator<XSLFTableCell> cells;          // 当前行的单元格
+        private Iterator<XSLFTextParagraph> paragraphs; // 当前文本 shape 或单元格的段落
+        private XSLFTextParagraph next;
+
+        ParagraphIterator(List<XSLFSheet> sheets, int from, int to) {
+            this.sheets = sheets;
+            this.sheetIndex = from;
+            this.end = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public XSLFTextParagraph next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            XSLFTextParagraph result = next;
+            next = null;
+            return result;
+        }
+
+        // 找到下一个段落，没有时返回 null
+        private XSLFTextParagraph advance() {
+            while (true) {
+                if (paragraphs != null && paragraphs.hasNext()) {
+                    return paragraphs.next();
+                }
+                paragraphs = null;
+                if (cells != null && cells.hasNext()) {
+                    paragraphs = cells.next().getTextParagraphs().iterator();
+                    continue;
+                }
+                cells = null;
+                if (rows != null && rows.hasNext()) {
+                    cells = rows.next().getCells().iterator();
+                    continue;
+                }
+                rows = null;
+
+                Iterator<XSLFShape> current = shapes.peek();
+                if (current != null) {
+                    if (current.hasNext()) {
+                        visit(current.next());
+                    } else {
+                        shapes.pop();
+                    }
+                    continue;
+                }
+
+                if (sheetIndex < end) {
+                    shapes.push(sheets.get(sheetIndex++).getShapes().iterator());
+                    continue;
+                }
+                return null;
+            }
+        }
+
+        // 展开一个 shape
+        private void visit(XSLFShape shape) {
+            if (shape instanceof XSLFGroupShape) {
+                shapes.push(((XSLFGroupShape) shape).getShapes().iterator());
+            } else if (shape instanceof XSLFTable) {
+                rows = ((XSLFTable) shape).getRows().iterator();
+            } else if (shape instanceof XSLFTextShape) {
+                paragraphs = ((XSLFTextShape) shape).getTextParagraphs().iterator();
+            }
+        }
+    }
+
+    // 按页面拆分的 Spliterator，开始遍历后不再拆分
+    private static final class ParagraphSpliterator implements Spliterator<XSLFTextParagraph> {
+        private final List<XSLFSheet> sheets;
+        private int from;
+        private final int to;
+        private ParagraphIterator iterator;
+
+        ParagraphSpliterator(List<XSLFSheet> sheets, int from, int to) {
+            this.sheets = sheets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super XSLFTextParagraph> action) {
+            if (iterator == null) {
+                iterator = new ParagraphIterator(sheets, from, to);
+            }
+            if (iterator.hasNext()) {
+                action.accept(iterator.next());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super XSLFTextParagraph> action) {
+            if (iterator == null) {
+                iterator = new ParagraphIterator(sheets, from, to);
+            }
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+            }
+        }
+
+        @Override
+        public Spliterator<XSLFTextParagraph> trySplit() {
+            if (iterator != null || to - from < 2) {
+                return null;
+            }
+            int mid = (from + to) >>> 1;
+            ParagraphSpliterator prefix = new ParagraphSpliterator(sheets, from, mid);
+            from = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return iterator == null ? to - from : Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.livekeys.officetool.pptutil;
+
+import org.apache.poi.ooxml.POIXMLDocumentPart;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.PackageRelationship;
+import org.apache.poi.openxml4j.opc.TargetMode;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFRelation;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.xmlbeans.XmlCursor;
+import org.openxmlformats.schemas.presentationml.x2006.main.CTSlide;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按模板幻灯片复制新幻灯片
+ *
+ * 创建时保存一份模板幻灯片 xml 的副本，之后每次复制只把这份 xml 复制到新幻灯片上，
+ * 不再像 importContent 那样重新导入图片等部件；图片、图表、嵌入对象等部件在各幻灯片之间共用。
+ * 备注页和批注不会复制。
+ */
+final class SlideCloner {
+
+    private static final String RELATIONSHIP_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private final XMLSlideShow pptx;
+    private final XSLFSlide template;
+    private final CTSlide snapshot;     // 模板幻灯片 xml 的副本
+    private final List<PackageRelationship> relationships = new ArrayList<PackageRelationship>();  // 需要复制的关系
+
+    private String layoutId;            // 新幻灯片上版式关系的 id，第一次复制时确定
+    private Map<String, String> idMap;  // 模板关系 id 与新幻灯片关系 id 的对应
+    private CTSlide mappedSnapshot;     // 关系 id 替换后的 xml
+
+    SlideCloner(XMLSlideShow pptx, XSLFSlide template) {
+        this.pptx = pptx;
+        this.template = template;
+        this.snapshot = (CTSlide) template.getXmlObject().copy();
+        try {
+            for (PackageRelationship rel : template.getPackagePart().getRelationships()) {
+                String type = rel.getRelationshipType();
+                if (!XSLFRelation.SLIDE_LAYOUT.getRelation().equals(type)
+                        && !XSLFRelation.NOTES.getRelation().equals(type)
+                        && !XSLFRelation.COMMENTS.getRelation().equals(type)) {
+                    relationships.add(rel);
+                }
+            }
+        } catch (InvalidFormatException e) {
+            throw new IllegalStateException("无法读取幻灯片的关系：" + template.getPackagePart().getPartName(), e);
+        }
+    }
+
+    /**
+     * 复制一张幻灯片，添加到最后
+     * @return
+     */
+    XSLFSlide cloneSlide() {
+        XSLFSlide slide = pptx.createSlide(template.getSlideLayout());
+        String currentLayoutId = slide.getRelationId(slide.getSlideLayout());
+        if (idMap == null || !currentLayoutId.equals(layoutId)) {
+            layoutId = currentLayoutId;
+            idMap = mapRelationIds(currentLayoutId);
+            mappedSnapshot = remapSnapshot();
+        }
+
+        for (PackageRelationship rel : relationships) {
+            copyRelationship(slide, rel, idMap.get(rel.getId()));
+        }
+        slide.getXmlObject().set(mappedSnapshot);
+        return slide;
+    }
+
+    // 确定每个关系在新幻灯片上的 id，只有和版式关系冲突时才换成新的 id
+    private Map<String, String> mapRelationIds(String layoutId) {
+        Set<String> usedIds = new HashSet<String>();
+        usedIds.add(layoutId);
+        for (PackageRelationship rel : relationships) {
+            usedIds.add(rel.getId());
+        }
+
+        Map<String, String> result = new HashMap<String, String>();
+        int next = 1;
+        for (PackageRelationship rel : relationships) {
+            String id = rel.getId();
+            if (id.equals(layoutId)) {
+                while (usedIds.contains("rId" + next)) {
+                    next++;
+                }
+                id = "rId" + next;
+                usedIds.add(id);
+            }
+            result.put(rel.getId(), id);
+        }
+        return result;
+    }
+
+    // 按 idMap 替换 xml 中引用的关系 id，没有需要替换的 id 时直接使用模板 xml 的副本
+    private CTSlide remapSnapshot() {
+        Map<String, String> changed = new HashMap<String, String>();
+        for (Map.Entry<String, String> entry : idMap.entrySet()) {
+            if (!entry.getKey().equals(entry.getValue())) {
+                changed.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (changed.isEmpty()) {
+            return snapshot;
+        }
+
+        CTSlide mapped = (CTSlide) snapshot.copy();
+        XmlCursor cursor = mapped.newCursor();
+        try {
+            while (cursor.hasNextToken()) {
+                if (cursor.toNextToken().isAttr() && RELATIONSHIP_NS.equals(cursor.getName().getNamespaceURI())) {
+                    String newId = changed.get(cursor.getTextValue());
+                    if (newId != null) {
+                        cursor.setTextValue(newId);
+                    }
+                }
+            }
+        } finally {
+            cursor.dispose();
+        }
+        return mapped;
+    }
+
+    // 在新幻灯片上添加和模板相同的关系
+    private void copyRelationship(XSLFSlide slide, PackageRelationship rel, String id) {
+        String type = rel.getRelationshipType();
+        if (rel.getTargetMode() == TargetMode.EXTERNAL) {
+            slide.getPackagePart().addExternalRelationship(rel.getTargetURI().toString(), type, id);
+            return;
+        }
+
+        POIXMLDocumentPart part = template.getRelationById(rel.getId());
+        XSLFRelation relation = XSLFRelation.getInstance(type);
+        if (part != null && relation != null) {
+            slide.addRelation(id, relation, part);
+        } else {
+            // POI 不认识的部件只在包中添加关系
+            slide.getPackagePart().addRelationship(rel.getTargetURI(), TargetMode.INTERNAL, type, id);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.livekeys.officetool.pptutil;
+
+import org.apache.poi.xslf.usermodel.XSLFChart;
+import org.apache.poi.xslf.usermodel.XSLFSheet;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTableCell;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 并行处理时单张幻灯片上允许的操作
+ *
+ * 每张幻灯片、每个图表都是独立的 xml 部件，只修改这些部件内容的操作可以在不同幻灯片之间并行：
+ * 段落文本和标签替换、表格单元格文本、图表的 cat 和数据缓存。
+ * 新增或删除幻灯片、图片、关系等修改整个 ppt 包的操作，以及修改母版和版式的操作都是不安全的，这里不提供；
+ * 并行处理期间调用 PPTUtil.writePPT 会抛出 IllegalStateException。
+ * 传入的段落、单元格、图表必须属于当前幻灯片，否则抛出 IllegalArgumentException。
+ */
+public class SlideContext {
+
+    private final PPTUtil pptUtil;
+    private final XSLFSlide slide;
+    private final int slideIndex;
+
+    SlideContext(PPTUtil pptUtil, XSLFSlide slide, int slideIndex) {
+        this.pptUtil = pptUtil;
+        this.slide = slide;
+        this.slideIndex = slideIndex;
+    }
+
+    public XSLFSlide getSlide() {
+        return slide;
+    }
+
+    public int getSlideIndex() {
+        return slideIndex;
+    }
+
+    /**
+     * 获取幻灯片内的所有段落
+     * @return
+     */
+    public List<XSLFTextParagraph> getParagraphs() {
+        return pptUtil.getParagraphsFromSlide(slide);
+    }
+
+    /**
+     * 替换幻灯片内所有段落的标签，包括表格单元格内的段落
+     * @param paramMap
+     */
+    public void replaceTags(Map<String, Object> paramMap) {
+        for (XSLFTextParagraph paragraph : pptUtil.getSheetParagraphs(slide)) {
+            pptUtil.replaceTagInParagraph(paragraph, paramMap);
+        }
+    }
+
+    /**
+     * 替换段内的标签文本
+     * @param paragraph
+     * @param paramMap
+     */
+    public void replaceTagInParagraph(XSLFTextParagraph paragraph, Map<String, Object> paramMap) {
+        checkSheet(paragraph.getParentShape().getSheet());
+        pptUtil.replaceTagInParagraph(paragraph, paramMap);
+    }
+
+    /**
+     * 获取幻灯片中的表格列表
+     * @return
+     */
+    public List<XSLFTable> getTables() {
+        return pptUtil.getAllTableFromSlide(slide);
+    }
+
+    /**
+     * 设置单元格文本
+     * @param cell
+     * @param text
+     */
+    public void setCellText(XSLFTableCell cell, String text) {
+        checkSheet(cell.getSheet());
+        pptUtil.setCellText(cell, text);
+    }
+
+    /**
+     * 设置单元格的多行文本
+     * @param cell
+     * @param lines
+     */
+    public void setCellTextLines(XSLFTableCell cell, List<String> lines) {
+        checkSheet(cell.getSheet());
+        pptUtil.setCellTextLines(cell, lines);
+    }
+
+    /**
+     * 获取幻灯片中的图表列表
+     * @return
+     */
+    public List<XSLFChart> getCharts() {
+        return pptUtil.getAllChartFromSlide(slide);
+    }
+
+    /**
+     * 更新图表中第 barChartIndex 个柱状图的 cat 缓存
+     * @param chart
+     * @param barChartIndex
+     * @param serIndex
+     * @param data
+     */
+    public void updateBarCat(XSLFChart chart, int barChartIndex, int serIndex, List<List<String>> data) {
+        checkChart(chart);
+        pptUtil.updateBarCat(pptUtil.getBarChartFromChart(chart).get(barChartIndex), serIndex, data);
+    }
+
+    /**
+     * 更新图表中第 barChartIndex 个柱状图的缓存数据
+     * @param chart
+     * @param barChartIndex
+     * @param serIndex
+     * @param data
+     */
+    public void updateBarDataCache(XSLFChart chart, int barChartIndex, int serIndex, List<String> data) {
+        checkChart(chart);
+        pptUtil.updateBarDataCache(pptUtil.getBarChartFromChart(chart).get(barChartIndex), serIndex, data);
+    }
+
+    /**
+     * 更新图表中第 lineChartIndex 个折线图的 cat 缓存
+     * @param chart
+     * @param lineChartIndex
+     * @param serIndex
+     * @param data
+     */
+    public void updateLineCat(XSLFChart chart, int lineChartIndex, int serIndex, List<List<String>> data) {
+        checkChart(chart);
+        pptUtil.updateLineCat(pptUtil.getLineChartFromChart(chart).get(lineChartIndex), serIndex, data);
+    }
+
+    /**
+     * 更新图表中第 lineChartIndex 个折线图的缓存数据
+     * @param chart
+     * @param lineChartIndex
+     * @param serIndex
+     * @param data
+     */
+    public void updateLineDataCache(XSLFChart chart, int lineChartIndex, int serIndex, List<String> data) {
+        checkChart(chart);
+        pptUtil.updateLineDataCache(pptUtil.getLineChartFromChart(chart).get(lineChartIndex), serIndex, data);
+    }
+
+    /**
+     * 更新图表中第 pieChartIndex 个饼图的 cat 缓存
+     * @param chart
+     * @param pieChartIndex
+     * @param serIndex
+     * @param data
+     */
+    public void updatePieCat(XSLFChart chart, int pieChartIndex, int serIndex, List<List<String>> data) {
+        checkChart(chart);
+        pptUtil.updatePieCat(pptUtil.getPieChartFromChart(chart).get(pieChartIndex), serIndex, data);
+    }
+
+    /**
+     * 更新图表中第 pieChartIndex 个饼图的缓存数据
+     * @param chart
+     * @param pieChartIndex
+     * @param serIndex
+     * @param data
+     */
+    public void updatePieDataCache(XSLFChart chart, int pieChartIndex, int serIndex, List<String> data) {
+        checkChart(chart);
+        pptUtil.updatePieDataCache(pptUtil.getPieChartFromChart(chart).get(pieChartIndex), serIndex, data);
+    }
+
+    /**
+     * 更新图表中第 radarChartIndex 个雷达图的 cat 缓存
+     * @param chart
+     * @param radarChartIndex
+     * @param serIndex
+     * @param data
+     */
+    public void updateRadarCat(XSLFChart chart, int radarChartIndex, int serIndex, List<List<String>> data) {
+        checkChart(chart);
+        pptUtil.updateRadarCat(pptUtil.getRadarChartFromChart(chart).get(radarChartIndex), serIndex, data);
+    }
+
+    /**
+     * 更新图表中第 radarChartIndex 个雷达图的缓存数据
+     * @param chart
+     * @param radarChartIndex
+     * @param serIndex
+     * @param data
+     */
+    public void updateRadarDataCache(XSLFChart chart, int radarChartIndex, int serIndex, List<String> data) {
+        checkChart(chart);
+        pptUtil.updateRadarDataCache(pptUtil.getRadarChartFromChart(chart).get(radarChartIndex), serIndex, data);
+    }
+
+    // 检查对象是否属于当前幻灯片
+    private void checkSheet(XSLFSheet sheet) {
+        if (sheet != slide) {
+            throw new IllegalArgumentException("object does not belong to slide " + slideIndex);
+        }
+    }
+
+    // 检查图表是否属于当前幻灯片
+    private void checkChart(XSLFChart chart) {
+        if (pptUtil.getSlideIndex(slide).getCharts().contains(chart)) {
+            return;
+        }
+        throw new IllegalArgumentException("chart does not belong to slide " + slideIndex);
+    }
+}
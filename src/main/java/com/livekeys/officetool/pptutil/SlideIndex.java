@@ -0,0 +1,346 @@
+package com.livekeys.officetool.pptutil;
+
+import org.apache.poi.ooxml.POIXMLDocumentPart;
+import org.apache.poi.sl.usermodel.Placeholder;
+import org.apache.poi.xslf.usermodel.XSLFChart;
+import org.apache.poi.xslf.usermodel.XSLFGroupShape;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTGraphicalObjectData;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTNonVisualDrawingProps;
+import org.openxmlformats.schemas.presentationml.x2006.main.CTConnector;
+import org.openxmlformats.schemas.presentationml.x2006.main.CTGraphicalObjectFrame;
+import org.openxmlformats.schemas.presentationml.x2006.main.CTGroupShape;
+import org.openxmlformats.schemas.presentationml.x2006.main.CTPicture;
+import org.openxmlformats.schemas.presentationml.x2006.main.CTShape;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单张幻灯片的 shape 索引
+ *
+ * 第一次查询时遍历一次幻灯片（包括组合内的 shape），按类型、名称、id、替代文字、占位符分类，之后的查询直接使用索引，
+ * 直到调用 invalidate 后才重新遍历。
+ * 按类型查询时子类也会被归入父类，例如文本框同时属于 XSLFTextBox、XSLFAutoShape 和 XSLFTextShape。
+ * 索引不会检查幻灯片的变化：直接通过 POI 在幻灯片或组合中新增、删除 shape，或者修改 shape 的名称、替代文字等属性后，
+ * 需要调用 invalidate 或 PPTUtil.invalidateSlideIndex。
+ */
+public class SlideIndex {
+
+    private static final String CHART_URI = "http://schemas.openxmlformats.org/drawingml/2006/chart";
+    private static final QName CHART = new QName(CHART_URI, "chart");
+    private static final QName RELATION_ID = new QName("http://schemas.openxmlformats.org/officeDocument/2006/relationships", "id");
+
+    private final PPTUtil pptUtil;
+    private final XSLFSlide slide;
+
+    private volatile Snapshot snapshot;
+
+    SlideIndex(PPTUtil pptUtil, XSLFSlide slide) {
+        this.pptUtil = pptUtil;
+        this.slide = slide;
+    }
+
+    public XSLFSlide getSlide() {
+        return slide;
+    }
+
+    /**
+     * 丢弃索引，下一次查询时重建，整个 ppt 的索引也一起丢弃
+     */
+    public void invalidate() {
+        this.snapshot = null;
+        pptUtil.invalidateDeckIndex();
+    }
+
+    /**
+     * 获取幻灯片顶层的某类 shape
+     * @param type
+     * @param <T>
+     * @return
+     */
+    public <T extends XSLFShape> List<T> getTopLevelShapes(Class<T> type) {
+        return cast(snapshot().topLevelByType.get(type));
+    }
+
+    /**
+     * 获取幻灯片顶层的第一个某类 shape，没有时返回 null
+     * @param type
+     * @param <T>
+     * @return
+     */
+    public <T extends XSLFShape> T getTopLevelShape(Class<T> type) {
+        List<T> shapes = getTopLevelShapes(type);
+        return shapes.isEmpty() ? null : shapes.get(0);
+    }
+
+    /**
+     * 获取幻灯片中的所有 shape，组合会被展开，组合本身也包含在内
+     * @return
+     */
+    public List<XSLFShape> getShapes() {
+        return snapshot().shapes;
+    }
+
+    /**
+     * 获取幻灯片中的某类 shape，包括组合内的 shape
+     * @param type
+     * @param <T>
+     * @return
+     */
+    public <T extends XSLFShape> List<T> getShapes(Class<T> type) {
+        return cast(snapshot().byType.get(type));
+    }
+
+    /**
+     * 根据名称获取 shape，包括组合内的 shape
+     * @param name
+     * @return
+     */
+    public List<XSLFShape> getShapesByName(String name) {
+        return nullToEmpty(snapshot().byName.get(name));
+    }
+
+    /**
+     * 根据名称获取第一个 shape，没有时返回 null
+     * @param name
+     * @return
+     */
+    public XSLFShape getShapeByName(String name) {
+        List<XSLFShape> shapes = getShapesByName(name);
+        return shapes.isEmpty() ? null : shapes.get(0);
+    }
+
+    /**
+     * 根据替代文字获取 shape，包括组合内的 shape
+     * @param altText
+     * @return
+     */
+    public List<XSLFShape> getShapesByAltText(String altText) {
+        return nullToEmpty(snapshot().byAltText.get(altText));
+    }
+
+    /**
+     * 根据 shape id 获取 shape，没有时返回 null
+     * @param shapeId
+     * @return
+     */
+    public XSLFShape getShapeById(int shapeId) {
+        return snapshot().byId.get(shapeId);
+    }
+
+    /**
+     * 根据占位符类型获取 shape，包括组合内的 shape
+     * @param placeholder
+     * @return
+     */
+    public List<XSLFShape> getShapesByPlaceholder(Placeholder placeholder) {
+        return nullToEmpty(snapshot().byPlaceholder.get(placeholder));
+    }
+
+    /**
+     * 获取幻灯片关联的图表
+     * @return
+     */
+    public List<XSLFChart> getCharts() {
+        return snapshot().charts;
+    }
+
+    /**
+     * 获取图表所在的 shape 对应的图表，不是图表时返回 null
+     * @param frame
+     * @return
+     */
+    public XSLFChart getChart(XSLFShape frame) {
+        return snapshot().chartByFrame.get(frame);
+    }
+
+    Map<String, List<XSLFShape>> getNameMap() {
+        return snapshot().byName;
+    }
+
+    Map<String, List<XSLFShape>> getAltTextMap() {
+        return snapshot().byAltText;
+    }
+
+    Map<Placeholder, List<XSLFShape>> getPlaceholderMap() {
+        return snapshot().byPlaceholder;
+    }
+
+    Map<XSLFShape, XSLFChart> getChartMap() {
+        return snapshot().chartByFrame;
+    }
+
+    // 获取索引，还没有建立或者已经丢弃时重新遍历幻灯片
+    private Snapshot snapshot() {
+        Snapshot current = this.snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = this.snapshot;
+            if (current == null) {
+                current = new Snapshot(slide);
+                this.snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> cast(List<? extends XSLFShape> shapes) {
+        return shapes == null ? Collections.<T>emptyList() : (List<T>) shapes;
+    }
+
+    private static List<XSLFShape> nullToEmpty(List<XSLFShape> shapes) {
+        return shapes == null ? Collections.<XSLFShape>emptyList() : shapes;
+    }
+
+    // 获取 shape 的 cNvPr，不支持的类型返回 null
+    private static CTNonVisualDrawingProps getCNvPr(XSLFShape shape) {
+        XmlObject xml = shape.getXmlObject();
+        if (xml instanceof CTShape) {
+            return ((CTShape) xml).getNvSpPr().getCNvPr();
+        } else if (xml instanceof CTGraphicalObjectFrame) {
+            return ((CTGraphicalObjectFrame) xml).getNvGraphicFramePr().getCNvPr();
+        } else if (xml instanceof CTGroupShape) {
+            return ((CTGroupShape) xml).getNvGrpSpPr().getCNvPr();
+        } else if (xml instanceof CTPicture) {
+            return ((CTPicture) xml).getNvPicPr().getCNvPr();
+        } else if (xml instanceof CTConnector) {
+            return ((CTConnector) xml).getNvCxnSpPr().getCNvPr();
+        }
+        return null;
+    }
+
+    // 根据图表所在 shape 中的 r:id 找到对应的图表
+    private static XSLFChart findChart(XSLFSlide slide, XSLFShape shape) {
+        XmlObject xml = shape.getXmlObject();
+        if (!(xml instanceof CTGraphicalObjectFrame)) {
+            return null;
+        }
+        CTGraphicalObjectData graphicData = ((CTGraphicalObjectFrame) xml).getGraphic().getGraphicData();
+        if (!CHART_URI.equals(graphicData.getUri())) {
+            return null;
+        }
+        XmlObject[] charts = graphicData.selectChildren(CHART);
+        if (charts.length == 0) {
+            return null;
+        }
+        XmlCursor cursor = charts[0].newCursor();
+        try {
+            String relationId = cursor.getAttributeText(RELATION_ID);
+            POIXMLDocumentPart relation = relationId == null ? null : slide.getRelationById(relationId);
+            return relation instanceof XSLFChart ? (XSLFChart) relation : null;
+        } finally {
+            cursor.dispose();
+        }
+    }
+
+    // 一次遍历得到的索引，创建后不再修改
+    private static class Snapshot {
+        private final Map<Class<?>, List<XSLFShape>> topLevelByType = new HashMap<Class<?>, List<XSLFShape>>();
+        private final Map<Class<?>, List<XSLFShape>> byType = new HashMap<Class<?>, List<XSLFShape>>();
+        private final Map<String, List<XSLFShape>> byName = new HashMap<String, List<XSLFShape>>();
+        private final Map<String, List<XSLFShape>> byAltText = new HashMap<String, List<XSLFShape>>();
+        private final Map<Integer, XSLFShape> byId = new HashMap<Integer, XSLFShape>();
+        private final Map<Placeholder, List<XSLFShape>> byPlaceholder = new EnumMap<Placeholder, List<XSLFShape>>(Placeholder.class);
+        private final Map<XSLFShape, XSLFChart> chartByFrame = new IdentityHashMap<XSLFShape, XSLFChart>();
+        private final XSLFSlide slide;
+        private final List<XSLFShape> shapes;
+        private final List<XSLFChart> charts;
+
+        private Snapshot(XSLFSlide slide) {
+            this.slide = slide;
+            List<XSLFShape> allShapes = new ArrayList<XSLFShape>();
+            List<XSLFShape> topLevel = slide.getShapes();
+            for (XSLFShape shape : topLevel) {
+                addByType(topLevelByType, shape);
+                addShape(allShapes, shape);
+            }
+            this.shapes = Collections.unmodifiableList(allShapes);
+
+            List<XSLFChart> chartList = new ArrayList<XSLFChart>();
+            for (POIXMLDocumentPart relation : slide.getRelations()) {
+                if (relation instanceof XSLFChart) {
+                    chartList.add((XSLFChart) relation);
+                }
+            }
+            this.charts = Collections.unmodifiableList(chartList);
+
+            freeze(topLevelByType);
+            freeze(byType);
+            freeze(byName);
+            freeze(byAltText);
+            freeze(byPlaceholder);
+        }
+
+        // 索引一个 shape，组合会递归展开
+        private void addShape(List<XSLFShape> allShapes, XSLFShape shape) {
+            allShapes.add(shape);
+            addByType(byType, shape);
+
+            CTNonVisualDrawingProps cNvPr = getCNvPr(shape);
+            if (cNvPr != null) {
+                addTo(byName, cNvPr.getName(), shape);
+                if (cNvPr.isSetDescr()) {
+                    addTo(byAltText, cNvPr.getDescr(), shape);
+                }
+                Integer id = (int) cNvPr.getId();
+                if (!byId.containsKey(id)) {
+                    byId.put(id, shape);
+                }
+            }
+
+            if (shape.isPlaceholder()) {
+                addTo(byPlaceholder, shape.getPlaceholder(), shape);
+            }
+
+            XSLFChart chart = findChart(slide, shape);
+            if (chart != null) {
+                chartByFrame.put(shape, chart);
+            }
+
+            if (shape instanceof XSLFGroupShape) {
+                for (XSLFShape child : ((XSLFGroupShape) shape).getShapes()) {
+                    addShape(allShapes, child);
+                }
+            }
+        }
+
+        // 按类型归类，shape 同时归入所有父类
+        private static void addByType(Map<Class<?>, List<XSLFShape>> map, XSLFShape shape) {
+            for (Class<?> type = shape.getClass(); type != null && XSLFShape.class.isAssignableFrom(type); type = type.getSuperclass()) {
+                addTo(map, type, shape);
+            }
+        }
+
+        private static <K> void addTo(Map<K, List<XSLFShape>> map, K key, XSLFShape shape) {
+            if (key == null) {
+                return;
+            }
+            List<XSLFShape> list = map.get(key);
+            if (list == null) {
+                list = new ArrayList<XSLFShape>();
+                map.put(key, list);
+            }
+            list.add(shape);
+        }
+
+        // 把 map 中的列表都换成只读列表
+        private static <K> void freeze(Map<K, List<XSLFShape>> map) {
+            for (Map.Entry<K, List<XSLFShape>> entry : map.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.livekeys.officetool.pptutil;
+
+import com.livekeys.officetool.pptutil.entity.TagLocation;
+import org.apache.xmlbeans.XmlCursor;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTRegularTextRun;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextParagraph;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 段落内 {tag} 标签的扫描和替换
+ * 一次遍历段落的所有 run，能找出被 PowerPoint 拆分到多个 run 中的标签，
+ * 替换时把整个标签合并到第一个 run 中，保留第一个 run 的 rPr
+ */
+final class TagTokenizer {
+
+    private static final String DRAWINGML_NS = "http://schemas.openxmlformats.org/drawingml/2006/main";
+
+    private TagTokenizer() {
+    }
+
+    /**
+     * 扫描段落内的所有标签，与正则 \{.+?\} 在 run 文本上的匹配结果一致，标签不能跨过换行（br）和字段（fld）
+     * @param paragraph
+     * @param runs  段落的 run，即 paragraph 的 r 节点
+     * @param slideIndex
+     * @param shapeIndex
+     * @param paragraphIndex
+     * @param tagLocations  扫描到的标签按顺序追加到这里
+     */
+    static void tokenize(CTTextParagraph paragraph, CTRegularTextRun[] runs, int slideIndex, int shapeIndex,
+                         int paragraphIndex, List<TagLocation> tagLocations) {
+        boolean[] breakBefore = findBreaks(paragraph, runs.length);
+        StringBuilder key = null;
+        boolean inTag = false;
+        int startRun = 0;
+        int startOffset = 0;
+
+        for (int runIndex = 0; runIndex < runs.length; runIndex++) {
+            if (breakBefore != null && breakBefore[runIndex]) {
+                inTag = false;  // 前面有换行或字段，未结束的标签作废
+            }
+            String text = runs[runIndex].getT();
+            if (text == null || (!inTag && text.indexOf('{') < 0)) {
+                continue;
+            }
+
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (!inTag) {
+                    if (c == '{') {     // 标签开始
+                        if (key == null) {
+                            key = new StringBuilder();
+                        }
+                        key.setLength(0);
+                        inTag = true;
+                        startRun = runIndex;
+                        startOffset = i;
+                    }
+                } else if (isLineTerminator(c)) {   // 标签不能跨行
+                    inTag = false;
+                } else if (c == '}' && key.length() > 0) {  // 标签结束，标签名至少有一个字符
+                    tagLocations.add(new TagLocation(key.toString(), slideIndex, shapeIndex, paragraphIndex,
+                            startRun, startOffset, runIndex, i + 1));
+                    inTag = false;
+                } else {
+                    key.append(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * 按标签位置替换段落内的文本，跨 run 的标签替换后整体放到第一个 run 中，
+     * 中间被标签完全覆盖的 run 置为空文本
+     * @param runs  段落的 run
+     * @param tagLocations  该段落的标签位置，按顺序排列
+     * @param from  起始下标（包含）
+     * @param to    结束下标（不包含）
+     * @param paramMap
+     * @return 改写的 run 数
+     */
+    static int replace(CTRegularTextRun[] runs, List<TagLocation> tagLocations, int from, int to,
+                        Map<String, Object> paramMap) {
+        int runIndex = -1;
+        String text = null;
+        StringBuilder replaced = null;
+        int copied = 0;
+        int touched = 0;
+
+        for (int i = from; i < to; i++) {
+            TagLocation location = tagLocations.get(i);
+            if (location.getStartRunIndex() != runIndex) {
+                if (runIndex >= 0) {
+                    replaced.append(text, copied, text.length());
+                    runs[runIndex].setT(replaced.toString());
+                    touched++;
+                }
+                runIndex = location.getStartRunIndex();
+                text = runs[runIndex].getT();
+                replaced = new StringBuilder(text.length() + 16);
+                copied = 0;
+            }
+
+            replaced.append(text, copied, location.getStartOffset());
+            replaced.append(toText(paramMap.get(location.getKey()), location.getKey()));
+
+            if (location.getEndRunIndex() == runIndex) {
+                copied = location.getEndOffset();
+            } else {
+                // 标签跨 run，合并到第一个 run 中
+                runs[runIndex].setT(replaced.toString());
+                for (int j = runIndex + 1; j < location.getEndRunIndex(); j++) {
+                    runs[j].setT("");
+                }
+                touched += location.getEndRunIndex() - runIndex;
+                runIndex = location.getEndRunIndex();
+                text = runs[runIndex].getT();
+                replaced = new StringBuilder(text.length());
+                copied = location.getEndOffset();
+            }
+        }
+
+        if (runIndex >= 0) {
+            replaced.append(text, copied, text.length());
+            runs[runIndex].setT(replaced.toString());
+            touched++;
+        }
+        return touched;
+    }
+
+    // 标记每个 run 之前是否有 br 或 fld 节点，段落中没有这两种节点时返回 null
+    private static boolean[] findBreaks(CTTextParagraph paragraph, int runCount) {
+        if (paragraph.sizeOfBrArray() == 0 && paragraph.sizeOfFldArray() == 0) {
+            return null;
+        }
+        boolean[] breakBefore = new boolean[runCount + 1];
+        XmlCursor cursor = paragraph.newCursor();
+        try {
+            int runIndex = 0;
+            for (boolean found = cursor.toFirstChild(); found; found = cursor.toNextSibling()) {
+                if (!DRAWINGML_NS.equals(cursor.getName().getNamespaceURI())) {
+                    continue;
+                }
+                String name = cursor.getName().getLocalPart();
+                if ("r".equals(name)) {
+                    runIndex++;
+                } else if (("br".equals(name) || "fld".equals(name)) && runIndex <= runCount) {
+                    breakBefore[runIndex] = true;
+                }
+            }
+        } finally {
+            cursor.dispose();
+        }
+        return breakBefore;
+    }
+
+    // 参数值转文本，没有找到对应的值就直接替换成标签的值
+    static String toText(Object value, String key) {
+        if (value == null || "".equals(value.toString())) {
+            return key;
+        }
+        return value.toString();
+    }
+
+    // 与正则中 . 不能匹配的行结束符保持一致
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
@@ -0,0 +1,193 @@
+package com.livekeys.officetool.pptutil;
+
+import com.livekeys.officetool.metrics.Metrics;
+import com.livekeys.officetool.metrics.Phase;
+import com.livekeys.officetool.metrics.RenderMetrics;
+import com.livekeys.officetool.pptutil.entity.ChartInfo;
+import com.livekeys.officetool.pptutil.entity.TableInfo;
+import com.livekeys.officetool.pptutil.entity.TagInfo;
+import com.livekeys.officetool.pptutil.entity.TagLocation;
+import com.livekeys.officetool.pptutil.entity.TagReplaceReport;
+import com.livekeys.officetool.pptutil.entity.TemplateManifest;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFChart;
+import org.apache.poi.xslf.usermodel.XSLFNotes;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFSlideLayout;
+import org.apache.poi.xslf.usermodel.XSLFSlideMaster;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.apache.xmlbeans.XmlCursor;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTChart;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextParagraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 模板分析，一次遍历整个 ppt，找出所有标签、表格和图表，生成可以序列化缓存的 TemplateManifest
+ *
+ * 标签的范围与 PPTUtil.replaceTags 相同：幻灯片上的文本（含组合内的）、表格单元格、备注页、版式、母版和图表标题。
+ * 表格和图表只统计幻灯片上的，包括组合内的。
+ */
+public final class TemplateAnalyzer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TemplateAnalyzer.class);
+
+    private static final String CHART_NS = "http://schemas.openxmlformats.org/drawingml/2006/chart";
+
+    private TemplateAnalyzer() {
+    }
+
+    /**
+     * 分析模板文件
+     * @param filePath
+     * @return
+     * @throws IOException
+     */
+    public static TemplateManifest analyze(String filePath) throws IOException {
+        TemplateManifest manifest = analyze(Files.readAllBytes(Paths.get(filePath)));
+        if (logger.isDebugEnabled()) {
+            logger.debug("已分析模板：" + filePath + "，标签数：" + manifest.getTags().size()
+                    + "，表格数：" + manifest.getTables().size() + "，图表数：" + manifest.getCharts().size());
+        }
+        return manifest;
+    }
+
+    /**
+     * 分析 pptx 文件内容
+     * @param templateData
+     * @return
+     * @throws IOException
+     */
+    public static TemplateManifest analyze(byte[] templateData) throws IOException {
+        XMLSlideShow pptx = new XMLSlideShow(new ByteArrayInputStream(templateData));
+        try {
+            return analyze(new PPTUtil(pptx));
+        } finally {
+            pptx.getPackage().revert();
+        }
+    }
+
+    /**
+     * 分析已经打开的 ppt，不会修改 ppt
+     * @param pptUtil
+     * @return
+     */
+    public static TemplateManifest analyze(PPTUtil pptUtil) {
+        RenderMetrics metrics = pptUtil.getMetrics();
+        long start = Metrics.startTimer(metrics);
+
+        List<TagInfo> tags = new ArrayList<TagInfo>();
+        List<TableInfo> tables = new ArrayList<TableInfo>();
+        List<ChartInfo> charts = new ArrayList<ChartInfo>();
+        List<TagLocation> buffer = new ArrayList<TagLocation>();   // 各段落共用
+
+        List<XSLFSlide> slides = pptUtil.getSlides();
+        for (int slideIndex = 0; slideIndex < slides.size(); slideIndex++) {
+            XSLFSlide slide = slides.get(slideIndex);
+            for (XSLFTextParagraph paragraph : pptUtil.getSheetParagraphs(slide)) {
+                scanTags(paragraph.getXmlObject(), pptUtil.getTextContainer(paragraph), slideIndex, buffer, tags);
+            }
+            XSLFNotes notes = slide.getNotes();
+            if (notes != null) {
+                for (XSLFTextParagraph paragraph : pptUtil.getSheetParagraphs(notes)) {
+                    scanTags(paragraph.getXmlObject(), TagReplaceReport.Container.NOTES, slideIndex, buffer, tags);
+                }
+            }
+
+            SlideIndex index = pptUtil.getSlideIndex(slide);
+            for (XSLFShape shape : index.getShapes()) {
+                if (shape instanceof XSLFTable) {
+                    XSLFTable table = (XSLFTable) shape;
+                    tables.add(new TableInfo(table.getShapeName(), table.getShapeId(), slideIndex,
+                            table.getNumberOfRows(), table.getNumberOfColumns()));
+                    continue;
+                }
+                XSLFChart chart = index.getChart(shape);
+                if (chart != null) {
+                    charts.add(new ChartInfo(shape.getShapeName(), slideIndex,
+                            chart.getPackagePart().getPartName().getName(), getPlots(chart.getCTChart())));
+                    scanChartTitle(chart.getCTChart(), slideIndex, buffer, tags);
+                }
+            }
+        }
+
+        XMLSlideShow pptx = pptUtil.getPPTX();
+        for (XSLFSlideMaster master : pptx.getSlideMasters()) {
+            for (XSLFTextParagraph paragraph : pptUtil.getSheetParagraphs(master)) {
+                scanTags(paragraph.getXmlObject(), TagReplaceReport.Container.MASTER, -1, buffer, tags);
+            }
+            for (XSLFSlideLayout layout : master.getSlideLayouts()) {
+                for (XSLFTextParagraph paragraph : pptUtil.getSheetParagraphs(layout)) {
+                    scanTags(paragraph.getXmlObject(), TagReplaceReport.Container.LAYOUT, -1, buffer, tags);
+                }
+            }
+        }
+
+        Metrics.stopTimer(metrics, Phase.PARSE, start);
+        return new TemplateManifest(slides.size(), tags, tables, charts);
+    }
+
+    // 扫描段落中的标签
+    @SuppressWarnings("deprecation")  // TagTokenizer 按下标访问 run 数组
+    private static void scanTags(CTTextParagraph paragraph, TagReplaceReport.Container container, int slideIndex,
+                                 List<TagLocation> buffer, List<TagInfo> tags) {
+        buffer.clear();
+        TagTokenizer.tokenize(paragraph, paragraph.getRArray(), slideIndex, -1, -1, buffer);
+        for (TagLocation location : buffer) {
+            tags.add(new TagInfo(location.getKey(), container, slideIndex,
+                    location.getEndRunIndex() != location.getStartRunIndex()));
+        }
+    }
+
+    // 扫描图表标题中的标签
+    private static void scanChartTitle(CTChart ctChart, int slideIndex, List<TagLocation> buffer, List<TagInfo> tags) {
+        if (!ctChart.isSetTitle() || !ctChart.getTitle().isSetTx() || !ctChart.getTitle().getTx().isSetRich()) {
+            return;
+        }
+        for (CTTextParagraph paragraph : ctChart.getTitle().getTx().getRich().getPList()) {
+            scanTags(paragraph, TagReplaceReport.Container.CHART_TITLE, slideIndex, buffer, tags);
+        }
+    }
+
+    // 按顺序列出绘图区中的图表类型（barChart、lineChart 等节点）及其系列数
+    private static List<ChartInfo.Plot> getPlots(CTChart ctChart) {
+        List<ChartInfo.Plot> plots = new ArrayList<ChartInfo.Plot>();
+        if (ctChart.getPlotArea() == null) {
+            return plots;
+        }
+        XmlCursor cursor = ctChart.getPlotArea().newCursor();
+        try {
+            for (boolean found = cursor.toFirstChild(); found; found = cursor.toNextSibling()) {
+                String type = cursor.getName().getLocalPart();
+                if (CHART_NS.equals(cursor.getName().getNamespaceURI()) && type.endsWith("Chart")) {
+                    plots.add(new ChartInfo.Plot(type, countSeries(cursor)));
+                }
+            }
+        } finally {
+            cursor.dispose();
+        }
+        return plots;
+    }
+
+    // 统计当前图表节点下的 ser 节点数，结束时游标回到图表节点
+    private static int countSeries(XmlCursor cursor) {
+        int count = 0;
+        cursor.push();
+        for (boolean found = cursor.toFirstChild(); found; found = cursor.toNextSibling()) {
+            if ("ser".equals(cursor.getName().getLocalPart())) {
+                count++;
+            }
+        }
+        cursor.pop();
+        return count;
+    }
+}
@@ -0,0 +1,172 @@
+package com.livekeys.officetool.pptutil;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ppt 模板缓存
+ * 以文件路径和修改时间为 key，把模板文件内容缓存在内存中，每次获取时都从内存得到一份独立的 XMLSlideShow，
+ * 不再重复读取磁盘，编译好的 PPTTemplate 也随条目一起缓存。
+ * 超过条目数或总字节数上限时按最近最少使用的顺序淘汰。
+ */
+public class TemplateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TemplateCache.class);
+
+    private final int maxEntries;   // 最多缓存的模板数
+    private final long maxBytes;    // 缓存内容的总字节数上限
+
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<Path, Entry>(16, 0.75f, true);
+    private long totalBytes;
+
+    public TemplateCache(int maxEntries, long maxBytes) {
+        if (maxEntries < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("maxEntries and maxBytes must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 获取模板的一份独立副本，可以随意修改
+     * @param filePath
+     * @return
+     * @throws IOException
+     */
+    public PPTUtil open(String filePath) throws IOException {
+        return new PPTUtil(openSlideShow(filePath));
+    }
+
+    /**
+     * 获取模板的一份独立的 XMLSlideShow
+     * @param filePath
+     * @return
+     * @throws IOException
+     */
+    public XMLSlideShow openSlideShow(String filePath) throws IOException {
+        return new XMLSlideShow(new ByteArrayInputStream(getEntry(filePath).data));
+    }
+
+    /**
+     * 获取编译好的模板，同一个文件只编译一次
+     * @param filePath
+     * @return
+     * @throws IOException
+     */
+    public PPTTemplate getTemplate(String filePath) throws IOException {
+        Entry entry = getEntry(filePath);
+        synchronized (entry) {
+            if (entry.template == null) {
+                entry.template = PPTTemplate.compile(entry.data);
+            }
+            return entry.template;
+        }
+    }
+
+    /**
+     * 移除某个模板的缓存
+     * @param filePath
+     */
+    public synchronized void invalidate(String filePath) {
+        Entry entry = entries.remove(toKey(filePath));
+        if (entry != null) {
+            totalBytes -= entry.data.length;
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * 当前缓存的模板数
+     * @return
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 当前缓存内容的总字节数
+     * @return
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    // 获取缓存条目，文件不在缓存中或者已经被修改过时重新读取
+    private Entry getEntry(String filePath) throws IOException {
+        Path key = toKey(filePath);
+        long lastModified = Files.getLastModifiedTime(key).toMillis();
+        long fileSize = Files.size(key);
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.lastModified == lastModified && entry.fileSize == fileSize) {
+                return entry;
+            }
+        }
+
+        // 读取放在锁外面，不阻塞其它模板的获取
+        Entry entry = new Entry(lastModified, fileSize, Files.readAllBytes(key));
+        if (logger.isDebugEnabled()) {
+            logger.debug("已缓存模板：" + key + "，大小：" + entry.data.length);
+        }
+
+        synchronized (this) {
+            Entry old = entries.remove(key);
+            if (old != null) {
+                totalBytes -= old.data.length;
+            }
+            if (entry.data.length <= maxBytes) {
+                entries.put(key, entry);
+                totalBytes += entry.data.length;
+                evict();
+            } else {
+                logger.warn(key + " is larger than the cache size limit, it will not be cached");
+            }
+        }
+        return entry;
+    }
+
+    // 淘汰最近最少使用的条目
+    private void evict() {
+        Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && iterator.hasNext()) {
+            totalBytes -= iterator.next().getValue().data.length;
+            iterator.remove();
+        }
+    }
+
+    private static Path toKey(String filePath) {
+        return Paths.get(filePath).toAbsolutePath().normalize();
+    }
+
+    // 缓存条目
+    private static class Entry {
+        private final long lastModified;    // 文件修改时间
+        private final long fileSize;    // 文件大小
+        private final byte[] data;  // 模板文件内容
+        private PPTTemplate template;   // 编译好的模板，第一次使用时才编译
+
+        private Entry(long lastModified, long fileSize, byte[] data) {
+            this.lastModified = lastModified;
+            this.fileSize = fileSize;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.livekeys.officetool.pptutil.entity;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 模板分析得到的一个图表，记录绘图区中每个图表类型及其系列数
+ */
+public class ChartInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 绘图区中的一个图表类型，如 barChart、lineChart、pieChart、radarChart
+     */
+    public static class Plot implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String type;  // xml 中的节点名
+        private final int seriesCount;
+
+        public Plot(String type, int seriesCount) {
+            this.type = type;
+            this.seriesCount = seriesCount;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public int getSeriesCount() {
+            return seriesCount;
+        }
+
+        @Override
+        public String toString() {
+            return type + "(" + seriesCount + ")";
+        }
+    }
+
+    private final String name;  // 图表所在 shape 的名称
+    private final int slideIndex;
+    private final String partName;  // 图表部件名，如 /ppt/charts/chart1.xml
+    private final List<Plot> plots;
+
+    public ChartInfo(String name, int slideIndex, String partName, List<Plot> plots) {
+        this.name = name;
+        this.slideIndex = slideIndex;
+        this.partName = partName;
+        this.plots = Collections.unmodifiableList(new ArrayList<Plot>(plots));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSlideIndex() {
+        return slideIndex;
+    }
+
+    public String getPartName() {
+        return partName;
+    }
+
+    public List<Plot> getPlots() {
+        return plots;
+    }
+
+    /**
+     * 获取第 plotIndex 个 type 类型图表的系列数，与 getBarChartFromChart(chart).get(plotIndex) 等对应，没有该图表时返回 -1
+     * @param type
+     * @param plotIndex
+     * @return
+     */
+    public int getSeriesCount(String type, int plotIndex) {
+        int index = 0;
+        for (Plot plot : plots) {
+            if (plot.getType().equals(type) && index++ == plotIndex) {
+                return plot.getSeriesCount();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 第 plotIndex 个 type 类型图表中是否有第 serIndex 个系列
+     * @param type
+     * @param plotIndex
+     * @param serIndex
+     * @return
+     */
+    public boolean hasSeries(String type, int plotIndex, int serIndex) {
+        return serIndex >= 0 && serIndex < getSeriesCount(type, plotIndex);
+    }
+
+    @Override
+    public String toString() {
+        return name + "@" + slideIndex + plots;
+    }
+}
@@ -0,0 +1,24 @@
+package com.livekeys.officetool.pptutil.entity;
+
+import java.util.Map;
+
+/**
+ * 批量渲染中的一个任务：一组参数对应一份输出的 ppt
+ */
+public class RenderJob {
+    private final String exportPath;    // 输出文件路径
+    private final Map<String, Object> paramMap;     // 标签参数
+
+    public RenderJob(String exportPath, Map<String, Object> paramMap) {
+        this.exportPath = exportPath;
+        this.paramMap = paramMap;
+    }
+
+    public String getExportPath() {
+        return exportPath;
+    }
+
+    public Map<String, Object> getParamMap() {
+        return paramMap;
+    }
+}
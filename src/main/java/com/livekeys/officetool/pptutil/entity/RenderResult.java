@@ -0,0 +1,38 @@
+package com.livekeys.officetool.pptutil.entity;
+
+/**
+ * 批量渲染中一个任务的结果
+ */
+public class RenderResult {
+    private final int index;    // 任务的序号，从 0 开始
+    private final RenderJob job;
+    private final Throwable failure;    // 失败原因，成功时为 null
+    private final long elapsedMillis;   // 渲染加写入的耗时
+
+    public RenderResult(int index, RenderJob job, Throwable failure, long elapsedMillis) {
+        this.index = index;
+        this.job = job;
+        this.failure = failure;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public RenderJob getJob() {
+        return job;
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
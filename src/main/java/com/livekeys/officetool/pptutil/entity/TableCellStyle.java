@@ -0,0 +1,52 @@
+package com.livekeys.officetool.pptutil.entity;
+
+/**
+ * 表格单元格的样式，包括文本样式、填充颜色和边框，为 null 的项不修改
+ */
+public class TableCellStyle {
+    private ParagraphTextStyle textStyle;   // 文本样式
+    private String fillColorHex;    // 填充颜色16进制字符串，空字符串表示无填充
+    private String borderLineType;  // 边框线条类型，如 solid、dash，空字符串表示去掉边框
+    private String borderColorHex;  // 边框颜色16进制字符串
+    private String[] borderPositions;   // 边框的方向 left、right、top、bottom，为 null 时设置全部四个方向
+
+    public ParagraphTextStyle getTextStyle() {
+        return textStyle;
+    }
+
+    public void setTextStyle(ParagraphTextStyle textStyle) {
+        this.textStyle = textStyle;
+    }
+
+    public String getFillColorHex() {
+        return fillColorHex;
+    }
+
+    public void setFillColorHex(String fillColorHex) {
+        this.fillColorHex = fillColorHex;
+    }
+
+    public String getBorderLineType() {
+        return borderLineType;
+    }
+
+    public void setBorderLineType(String borderLineType) {
+        this.borderLineType = borderLineType;
+    }
+
+    public String getBorderColorHex() {
+        return borderColorHex;
+    }
+
+    public void setBorderColorHex(String borderColorHex) {
+        this.borderColorHex = borderColorHex;
+    }
+
+    public String[] getBorderPositions() {
+        return borderPositions;
+    }
+
+    public void setBorderPositions(String... borderPositions) {
+        this.borderPositions = borderPositions;
+    }
+}
@@ -0,0 +1,49 @@
+package com.livekeys.officetool.pptutil.entity;
+
+import java.io.Serializable;
+
+/**
+ * 模板分析得到的一个表格
+ */
+public class TableInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String name;  // 表格的名称，即“选择窗格”中的名称
+    private final int shapeId;
+    private final int slideIndex;
+    private final int rows;
+    private final int columns;
+
+    public TableInfo(String name, int shapeId, int slideIndex, int rows, int columns) {
+        this.name = name;
+        this.shapeId = shapeId;
+        this.slideIndex = slideIndex;
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getShapeId() {
+        return shapeId;
+    }
+
+    public int getSlideIndex() {
+        return slideIndex;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    @Override
+    public String toString() {
+        return name + "@" + slideIndex + "[" + rows + "x" + columns + "]";
+    }
+}
@@ -0,0 +1,43 @@
+package com.livekeys.officetool.pptutil.entity;
+
+import java.io.Serializable;
+
+/**
+ * 模板分析得到的一个 {tag} 标签
+ */
+public class TagInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String key;   // 标签名，不含大括号
+    private final TagReplaceReport.Container container;    // 标签所在的位置
+    private final int slideIndex;   // 所在幻灯片的索引，版式和母版中的标签为 -1
+    private final boolean split;    // 是否被拆分到多个 run 中
+
+    public TagInfo(String key, TagReplaceReport.Container container, int slideIndex, boolean split) {
+        this.key = key;
+        this.container = container;
+        this.slideIndex = slideIndex;
+        this.split = split;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public TagReplaceReport.Container getContainer() {
+        return container;
+    }
+
+    public int getSlideIndex() {
+        return slideIndex;
+    }
+
+    public boolean isSplit() {
+        return split;
+    }
+
+    @Override
+    public String toString() {
+        return "{" + key + "}@" + container + ":" + slideIndex + (split ? "(split)" : "");
+    }
+}
@@ -0,0 +1,73 @@
+package com.livekeys.officetool.pptutil.entity;
+
+/**
+ * 模板中一个 {tag} 标签的位置
+ */
+public class TagLocation {
+    private final String key;     // 标签名，不含大括号
+    private final int slideIndex;   // 幻灯片索引
+    private final int shapeIndex;   // 展开组合 shape 之后的 shape 索引
+    private final int paragraphIndex;   // shape 内的段落索引
+    private final int startRunIndex;    // '{' 所在 run 的索引
+    private final int startOffset;  // '{' 在起始 run 文本中的位置
+    private final int endRunIndex;  // '}' 所在 run 的索引，标签被拆分到多个 run 时大于 startRunIndex
+    private final int endOffset;    // '}' 之后在结束 run 文本中的位置
+
+    public TagLocation(String key, int slideIndex, int shapeIndex, int paragraphIndex,
+                       int startRunIndex, int startOffset, int endRunIndex, int endOffset) {
+        this.key = key;
+        this.slideIndex = slideIndex;
+        this.shapeIndex = shapeIndex;
+        this.paragraphIndex = paragraphIndex;
+        this.startRunIndex = startRunIndex;
+        this.startOffset = startOffset;
+        this.endRunIndex = endRunIndex;
+        this.endOffset = endOffset;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getSlideIndex() {
+        return slideIndex;
+    }
+
+    public int getShapeIndex() {
+        return shapeIndex;
+    }
+
+    public int getParagraphIndex() {
+        return paragraphIndex;
+    }
+
+    public int getStartRunIndex() {
+        return startRunIndex;
+    }
+
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    public int getEndRunIndex() {
+        return endRunIndex;
+    }
+
+    /**
+     * 标签是否被拆分到了多个 run 中
+     * @return
+     */
+    public boolean isSplit() {
+        return endRunIndex != startRunIndex;
+    }
+
+    public int getEndOffset() {
+        return endOffset;
+    }
+
+    @Override
+    public String toString() {
+        return "{" + key + "}@" + slideIndex + "/" + shapeIndex + "/" + paragraphIndex
+                + "[" + startRunIndex + ":" + startOffset + "," + endRunIndex + ":" + endOffset + ")";
+    }
+}
@@ -0,0 +1,75 @@
+package com.livekeys.officetool.pptutil.entity;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 整个 ppt 标签替换的统计，按文本所在的位置分别记录扫描的段落数和替换的标签数
+ */
+public class TagReplaceReport {
+
+    /**
+     * 文本所在的位置
+     */
+    public enum Container {
+        SHAPE,          // 幻灯片上的文本框、形状，包括组合内的
+        TABLE,          // 幻灯片上的表格单元格
+        NOTES,          // 备注页
+        LAYOUT,         // 版式
+        MASTER,         // 母版
+        CHART_TITLE     // 图表标题
+    }
+
+    private final Map<Container, int[]> paragraphCounts = new EnumMap<Container, int[]>(Container.class);
+    private final Map<Container, int[]> tagCounts = new EnumMap<Container, int[]>(Container.class);
+
+    public TagReplaceReport() {
+        for (Container container : Container.values()) {
+            paragraphCounts.put(container, new int[1]);
+            tagCounts.put(container, new int[1]);
+        }
+    }
+
+    /**
+     * 记录扫描过的一个段落及其中替换的标签数
+     * @param container
+     * @param tags
+     */
+    public void addParagraph(Container container, int tags) {
+        paragraphCounts.get(container)[0]++;
+        tagCounts.get(container)[0] += tags;
+    }
+
+    public int getParagraphCount(Container container) {
+        return paragraphCounts.get(container)[0];
+    }
+
+    public int getTagCount(Container container) {
+        return tagCounts.get(container)[0];
+    }
+
+    /**
+     * 获取所有位置替换的标签总数
+     * @return
+     */
+    public int getTotalTagCount() {
+        int total = 0;
+        for (int[] count : tagCounts.values()) {
+            total += count[0];
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("TagReplaceReport{");
+        for (Container container : Container.values()) {
+            if (container.ordinal() > 0) {
+                builder.append(", ");
+            }
+            builder.append(container).append('=').append(getTagCount(container))
+                    .append('/').append(getParagraphCount(container));
+        }
+        return builder.append('}').toString();
+    }
+}
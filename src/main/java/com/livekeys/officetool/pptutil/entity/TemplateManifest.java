@@ -0,0 +1,139 @@
+package com.livekeys.officetool.pptutil.entity;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 模板分析的结果：所有标签、表格和图表
+ *
+ * 可以序列化后缓存，渲染前用来检查输入数据，不需要再打开模板。
+ */
+public class TemplateManifest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int slideCount;
+    private final List<TagInfo> tags;
+    private final List<TableInfo> tables;
+    private final List<ChartInfo> charts;
+
+    public TemplateManifest(int slideCount, List<TagInfo> tags, List<TableInfo> tables, List<ChartInfo> charts) {
+        this.slideCount = slideCount;
+        this.tags = Collections.unmodifiableList(new ArrayList<TagInfo>(tags));
+        this.tables = Collections.unmodifiableList(new ArrayList<TableInfo>(tables));
+        this.charts = Collections.unmodifiableList(new ArrayList<ChartInfo>(charts));
+    }
+
+    public int getSlideCount() {
+        return slideCount;
+    }
+
+    public List<TagInfo> getTags() {
+        return tags;
+    }
+
+    public List<TableInfo> getTables() {
+        return tables;
+    }
+
+    public List<ChartInfo> getCharts() {
+        return charts;
+    }
+
+    /**
+     * 获取所有标签名，按出现顺序排列，不重复
+     * @return
+     */
+    public Set<String> getTagKeys() {
+        Set<String> keys = new LinkedHashSet<String>();
+        for (TagInfo tag : tags) {
+            keys.add(tag.getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * 获取被拆分到多个 run 中的标签名
+     * @return
+     */
+    public Set<String> getSplitTagKeys() {
+        Set<String> keys = new LinkedHashSet<String>();
+        for (TagInfo tag : tags) {
+            if (tag.isSplit()) {
+                keys.add(tag.getKey());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 根据名称获取表格，没有时返回 null
+     * @param name
+     * @return
+     */
+    public TableInfo getTable(String name) {
+        for (TableInfo table : tables) {
+            if (name.equals(table.getName())) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 根据图表所在 shape 的名称获取图表，没有时返回 null
+     * @param name
+     * @return
+     */
+    public ChartInfo getChart(String name) {
+        for (ChartInfo chart : charts) {
+            if (name.equals(chart.getName())) {
+                return chart;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 检查参数中是否缺少模板中的标签，值为空的参数替换后会保留标签名，也视为缺少
+     * @param paramMap
+     * @return 问题描述，没有问题时为空列表
+     */
+    public List<String> precheck(Map<String, ?> paramMap) {
+        List<String> problems = new ArrayList<String>();
+        for (String key : getTagKeys()) {
+            Object value = paramMap.get(key);
+            if (value == null || "".equals(value.toString())) {
+                problems.add("缺少标签参数：" + key);
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * 检查图表中是否有要更新的系列
+     * @param chartName 图表所在 shape 的名称
+     * @param type      图表类型，如 barChart
+     * @param plotIndex 同类型图表中的索引，通常为 0
+     * @param serIndex
+     * @return 问题描述，没有问题时返回 null
+     */
+    public String precheckSeries(String chartName, String type, int plotIndex, int serIndex) {
+        ChartInfo chart = getChart(chartName);
+        if (chart == null) {
+            return "没有找到图表：" + chartName;
+        }
+        int seriesCount = chart.getSeriesCount(type, plotIndex);
+        if (seriesCount < 0) {
+            return "图表 " + chartName + " 中没有第 " + plotIndex + " 个 " + type;
+        }
+        if (serIndex < 0 || serIndex >= seriesCount) {
+            return "图表 " + chartName + " 的 " + type + " 只有 " + seriesCount + " 个系列，无法更新第 " + serIndex + " 个系列";
+        }
+        return null;
+    }
+}
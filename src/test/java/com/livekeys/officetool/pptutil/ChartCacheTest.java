@@ -0,0 +1,187 @@
+package com.livekeys.officetool.pptutil;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTBarChart;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTBarSer;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTLvl;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTMultiLvlStrData;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTNumData;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTNumVal;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTStrData;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTStrVal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 图表 cat 和数值缓存的原地更新
+ */
+public class ChartCacheTest {
+
+    private XMLSlideShow pptx;
+    private PPTUtil pptUtil;
+    private CTBarChart barChart;
+
+    @Before
+    public void setUp() {
+        pptx = new XMLSlideShow();
+        pptUtil = new PPTUtil(pptx);
+        barChart = CTBarChart.Factory.newInstance();
+        CTBarSer ser = barChart.addNewSer();
+        ser.addNewCat();
+        ser.addNewVal().addNewNumRef().setF("Sheet1!$B$2:$B$4");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        pptx.close();
+    }
+
+    @Test
+    public void numPointsGrow() {
+        pptUtil.updateBarDataCache(barChart, 0, Arrays.asList("1", "2"));
+        CTNumVal first = numCache().getPtList().get(0);
+
+        pptUtil.updateBarDataCache(barChart, 0, Arrays.asList("1", "5", "3", "4"));
+        assertNumPoints(new int[]{0, 1, 2, 3}, new String[]{"1", "5", "3", "4"});
+        assertEquals(4, numCache().getPtCount().getVal());
+        assertSame(first, numCache().getPtList().get(0));
+    }
+
+    @Test
+    public void numPointsShrink() {
+        pptUtil.updateBarDataCache(barChart, 0, Arrays.asList("1", "2", "3", "4"));
+        pptUtil.updateBarDataCache(barChart, 0, Arrays.asList("7", "8"));
+        assertNumPoints(new int[]{0, 1}, new String[]{"7", "8"});
+        assertEquals(2, numCache().getPtCount().getVal());
+
+        pptUtil.updateBarDataCache(barChart, 0, Collections.<String>emptyList());
+        assertEquals(0, numCache().sizeOfPtArray());
+        assertEquals(0, numCache().getPtCount().getVal());
+    }
+
+    @Test
+    public void numPointsSameCount() {
+        pptUtil.updateBarDataCache(barChart, 0, Arrays.asList("1", "2", "3"));
+        CTNumVal last = numCache().getPtList().get(2);
+
+        pptUtil.updateBarDataCache(barChart, 0, Arrays.asList("1", "2", "9"));
+        assertNumPoints(new int[]{0, 1, 2}, new String[]{"1", "2", "9"});
+        assertEquals(3, numCache().getPtCount().getVal());
+        assertSame(last, numCache().getPtList().get(2));
+    }
+
+    @Test
+    public void numPointsSkipNull() {
+        pptUtil.updateBarDataCache(barChart, 0, Arrays.asList("1", "2", "3", "4"));
+        pptUtil.updateBarDataCache(barChart, 0, Arrays.asList("1", null, null, "4"));
+        assertNumPoints(new int[]{0, 3}, new String[]{"1", "4"});
+        assertEquals(4, numCache().getPtCount().getVal());
+
+        // 空值的点重新有值时 idx 跟着调整
+        pptUtil.updateBarDataCache(barChart, 0, Arrays.asList(null, "2", "3", null, "5"));
+        assertNumPoints(new int[]{1, 2, 4}, new String[]{"2", "3", "5"});
+        assertEquals(5, numCache().getPtCount().getVal());
+    }
+
+    @Test
+    public void numPointsFromDoubleArray() {
+        pptUtil.updateBarDataCache(barChart, 0,
+                new double[]{1, Double.NaN, 2.5, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -3}, "0.0");
+        assertNumPoints(new int[]{0, 2, 5}, new String[]{"1", "2.5", "-3"});
+        assertEquals(6, numCache().getPtCount().getVal());
+        assertEquals("0.0", numCache().getFormatCode());
+
+        pptUtil.updateBarDataCache(barChart, 0, new long[]{4, 5}, null);
+        assertNumPoints(new int[]{0, 1}, new String[]{"4", "5"});
+        assertEquals("0.0", numCache().getFormatCode());
+    }
+
+    @Test
+    public void strPointsGrowShrinkAndSkipNull() {
+        barChart.getSerList().get(0).getCat().addNewStrRef().setF("Sheet1!$A$2:$A$4");
+
+        pptUtil.updateBarCat(barChart, 0, lists(Arrays.asList("a", "b")));
+        assertStrPoints(strCache().getPtList(), new int[]{0, 1}, new String[]{"a", "b"});
+        assertEquals(2, strCache().getPtCount().getVal());
+
+        pptUtil.updateBarCat(barChart, 0, lists(Arrays.asList("x", null, "z", "w")));
+        assertStrPoints(strCache().getPtList(), new int[]{0, 2, 3}, new String[]{"x", "z", "w"});
+        assertEquals(4, strCache().getPtCount().getVal());
+
+        pptUtil.updateBarCat(barChart, 0, lists(Arrays.asList(null, "q")));
+        assertStrPoints(strCache().getPtList(), new int[]{1}, new String[]{"q"});
+        assertEquals(2, strCache().getPtCount().getVal());
+    }
+
+    @Test
+    public void multiLevelPoints() {
+        barChart.getSerList().get(0).getCat().addNewMultiLvlStrRef().setF("Sheet1!$A$2:$B$5");
+
+        pptUtil.updateBarCat(barChart, 0, lists(
+                Arrays.asList("q1", "q2", "q3", "q4"),
+                Arrays.asList("2020", null, "2021", null),
+                Arrays.asList("all", null, null, null)));
+        CTMultiLvlStrData cache = multiLvlCache();
+        assertEquals(3, cache.sizeOfLvlArray());
+        assertEquals(4, cache.getPtCount().getVal());
+        assertStrPoints(cache.getLvlList().get(0).getPtList(), new int[]{0, 1, 2, 3}, new String[]{"q1", "q2", "q3", "q4"});
+        assertStrPoints(cache.getLvlList().get(1).getPtList(), new int[]{0, 2}, new String[]{"2020", "2021"});
+        assertStrPoints(cache.getLvlList().get(2).getPtList(), new int[]{0}, new String[]{"all"});
+        CTLvl firstLevel = cache.getLvlList().get(0);
+
+        // 层数减少时删除多余的层，保留的层原地更新
+        pptUtil.updateBarCat(barChart, 0, lists(
+                Arrays.asList("a", "b"),
+                Arrays.asList("x", null)));
+        cache = multiLvlCache();
+        assertEquals(2, cache.sizeOfLvlArray());
+        assertEquals(2, cache.getPtCount().getVal());
+        assertSame(firstLevel, cache.getLvlList().get(0));
+        assertStrPoints(cache.getLvlList().get(0).getPtList(), new int[]{0, 1}, new String[]{"a", "b"});
+        assertStrPoints(cache.getLvlList().get(1).getPtList(), new int[]{0}, new String[]{"x"});
+    }
+
+    private CTNumData numCache() {
+        return barChart.getSerList().get(0).getVal().getNumRef().getNumCache();
+    }
+
+    private CTStrData strCache() {
+        return barChart.getSerList().get(0).getCat().getStrRef().getStrCache();
+    }
+
+    private CTMultiLvlStrData multiLvlCache() {
+        return barChart.getSerList().get(0).getCat().getMultiLvlStrRef().getMultiLvlStrCache();
+    }
+
+    private void assertNumPoints(int[] idx, String[] values) {
+        List<CTNumVal> pts = numCache().getPtList();
+        assertEquals(idx.length, pts.size());
+        for (int i = 0; i < idx.length; i++) {
+            assertEquals("idx of pt " + i, idx[i], pts.get(i).getIdx());
+            assertEquals("v of pt " + i, values[i], pts.get(i).getV());
+        }
+    }
+
+    private static void assertStrPoints(List<CTStrVal> pts, int[] idx, String[] values) {
+        assertEquals(idx.length, pts.size());
+        for (int i = 0; i < idx.length; i++) {
+            assertEquals("idx of pt " + i, idx[i], pts.get(i).getIdx());
+            assertEquals("v of pt " + i, values[i], pts.get(i).getV());
+        }
+    }
+
+    @SafeVarargs
+    private static List<List<String>> lists(List<String>... levels) {
+        return new ArrayList<List<String>>(Arrays.asList(levels));
+    }
+}
@@ -0,0 +1,55 @@
+package com.livekeys.officetool.pptutil;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PPTColorTest {
+
+    @Test
+    public void sameRgbSharesInstance() {
+        PPTColor red = PPTColor.valueOf("#FF0000");
+        assertSame(red, PPTColor.valueOf("ff0000"));
+        assertSame(red, PPTColor.valueOf("#f00"));
+        assertSame(red, PPTColor.rgb(255, 0, 0));
+        assertArrayEquals(new byte[]{(byte) 0xFF, 0, 0}, red.getRGB());
+        assertEquals("#FF0000", red.toString());
+    }
+
+    @Test
+    public void sameSchemeSharesInstance() {
+        PPTColor accent = PPTColor.valueOf("accent1");
+        assertTrue(accent.isScheme());
+        assertSame(accent, PPTColor.scheme("accent1"));
+        assertEquals("accent1", accent.getSchemeName());
+    }
+
+    @Test
+    public void recentlyUsedColorSurvivesEviction() {
+        PPTColor kept = PPTColor.valueOf("#123456");
+        for (int i = 0; i < 1000; i++) {
+            PPTColor.rgb(i >> 8, i & 0xFF, 7);
+            if (i % 100 == 0) {
+                assertSame(kept, PPTColor.valueOf("#123456"));
+            }
+        }
+        assertSame(kept, PPTColor.valueOf("123456"));
+        assertEquals(PPTColor.rgb(1, 2, 7), PPTColor.rgb(1, 2, 7));
+    }
+
+    @Test
+    public void invalidColor() {
+        String[] invalid = {"#12345", "12G456", "F00", "#accent1", "unknown"};
+        for (String color : invalid) {
+            try {
+                PPTColor.valueOf(color);
+                fail(color);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+}
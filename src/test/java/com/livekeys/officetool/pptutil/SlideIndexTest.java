@@ -0,0 +1,84 @@
+package com.livekeys.officetool.pptutil;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openxmlformats.schemas.presentationml.x2006.main.CTShape;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 幻灯片和整个 ppt 的 shape 索引只在显式丢弃后重建
+ */
+public class SlideIndexTest {
+
+    private XMLSlideShow pptx;
+    private PPTUtil pptUtil;
+    private XSLFSlide slide;
+
+    @Before
+    public void setUp() {
+        pptx = new XMLSlideShow();
+        pptUtil = new PPTUtil(pptx);
+        slide = pptx.createSlide();
+        textBox(slide, "title");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        pptx.close();
+    }
+
+    @Test
+    public void slideIndexKeptUntilInvalidated() {
+        SlideIndex index = pptUtil.getSlideIndex(slide);
+        assertEquals(1, index.getShapes().size());
+
+        XSLFTextBox added = textBox(slide, "added");
+        assertEquals(1, index.getShapes().size());
+        assertNull(index.getShapeByName("added"));
+
+        pptUtil.invalidateSlideIndex(slide);
+        SlideIndex rebuilt = pptUtil.getSlideIndex(slide);
+        assertEquals(2, rebuilt.getShapes().size());
+        assertSame(added, rebuilt.getShapeByName("added"));
+    }
+
+    @Test
+    public void deckIndexKeptUntilInvalidated() {
+        assertSame(slide.getShapes().get(0), pptUtil.findShape("title"));
+
+        XSLFTextBox added = textBox(slide, "added");
+        assertNull(pptUtil.findShape("added"));
+
+        // 直接丢弃幻灯片的索引时整个 ppt 的索引也一起丢弃
+        pptUtil.getSlideIndex(slide).invalidate();
+        assertSame(added, pptUtil.findShape("added"));
+    }
+
+    @Test
+    public void deckIndexRebuiltAfterSlidesChanged() {
+        assertEquals(1, pptUtil.findShapes("title").size());
+
+        XSLFSlide second = pptx.createSlide();
+        textBox(second, "title");
+        assertEquals(1, pptUtil.findShapes("title").size());
+
+        pptUtil.invalidateSlideIndexes();
+        assertEquals(2, pptUtil.findShapes("title").size());
+        assertSame(second.getShapes().get(0), pptUtil.findShapes("title").get(1));
+    }
+
+    private static XSLFTextBox textBox(XSLFSlide slide, String name) {
+        XSLFTextBox textBox = slide.createTextBox();
+        ((CTShape) textBox.getXmlObject()).getNvSpPr().getCNvPr().setName(name);
+        return textBox;
+    }
+}
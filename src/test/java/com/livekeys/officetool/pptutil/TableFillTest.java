@@ -0,0 +1,160 @@
+package com.livekeys.officetool.pptutil;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTableRow;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTRegularTextRun;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTableRow;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextCharacterProperties;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * fillTable 追加、删除行
+ */
+public class TableFillTest {
+
+    private XMLSlideShow pptx;
+    private PPTUtil pptUtil;
+
+    @Before
+    public void setUp() {
+        pptx = new XMLSlideShow();
+        pptUtil = new PPTUtil(pptx);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        pptx.close();
+    }
+
+    @Test
+    public void fillExistingRowsOnly() {
+        XSLFTable table = table(3, 2);
+        String[][] data = {{"a", "b", "extra"}, {"c"}, {"d", "e"}, {"f", "g"}};
+        assertEquals(3, pptUtil.fillTable(table, data));
+        assertEquals(3, rowCount(table));
+        assertRow(table, 0, "a", "b");
+        assertRow(table, 1, "c", "");
+        assertRow(table, 2, "d", "e");
+    }
+
+    @Test
+    public void appendRowsFromLastRow() {
+        XSLFTable table = table(2, 2);
+        CTRegularTextRun r = table.getCTTable().getTrList().get(1).getTcList().get(0)
+                .getTxBody().getPList().get(0).getRList().get(0);
+        CTTextCharacterProperties rPr = r.isSetRPr() ? r.getRPr() : r.addNewRPr();
+        rPr.setB(true);
+        table.getCTTable().getTrList().get(1).addNewExtLst();
+
+        String[][] data = {{"h1", "h2"}, {"a", "b"}, {"c", "d"}, {"e", "f"}};
+        assertEquals(4, pptUtil.fillTable(table, 0, data, true));
+        assertEquals(4, rowCount(table));
+        for (int i = 0; i < data.length; i++) {
+            assertRow(table, i, data[i]);
+        }
+        for (int i = 2; i < 4; i++) {
+            CTTableRow tr = table.getCTTable().getTrList().get(i);
+            assertTrue(tr.getTcList().get(0).getTxBody().getPList().get(0).getRList().get(0).getRPr().getB());
+            assertFalse(tr.isSetExtLst());
+        }
+        // 追加的行不经过 POI，已有的 XSLFTable 对象中看不到
+        assertEquals(2, table.getRows().size());
+    }
+
+    @Test
+    public void removeSurplusRows() {
+        XSLFTable table = table(5, 2);
+        String[][] data = {{"a", "b"}, {"c", "d"}};
+        assertEquals(2, pptUtil.fillTable(table, 1, data, true));
+        assertEquals(3, rowCount(table));
+        assertEquals(3, table.getRows().size());
+        assertRow(table, 0, "r0c0", "r0c1");
+        assertRow(table, 1, "a", "b");
+        assertRow(table, 2, "c", "d");
+    }
+
+    @Test
+    public void removeAppendedAndWrappedRows() {
+        XSLFTable table = table(3, 2);
+        String[][] many = {{"1"}, {"2"}, {"3"}, {"4"}, {"5"}, {"6"}};
+        pptUtil.fillTable(table, 0, many, true);
+        assertEquals(6, rowCount(table));
+        assertEquals(3, table.getRows().size());
+
+        // 追加的 3 行只在 xml 中，直接删除；第 3 行在 getRows 中，通过 POI 删除
+        String[][] few = {{"a"}, {"b"}};
+        assertEquals(2, pptUtil.fillTable(table, 0, few, true));
+        assertEquals(2, rowCount(table));
+        assertEquals(2, table.getRows().size());
+        assertRow(table, 0, "a", "");
+        assertRow(table, 1, "b", "");
+    }
+
+    @Test
+    public void removeOnlyAppendedRows() {
+        XSLFTable table = table(2, 1);
+        String[][] many = {{"1"}, {"2"}, {"3"}, {"4"}};
+        pptUtil.fillTable(table, 0, many, true);
+
+        String[][] three = {{"a"}, {"b"}, {"c"}};
+        assertEquals(3, pptUtil.fillTable(table, 0, three, true));
+        assertEquals(3, rowCount(table));
+        assertEquals(2, table.getRows().size());
+        assertRow(table, 2, "c");
+    }
+
+    @Test
+    public void keepTemplateRowWhenNoData() {
+        XSLFTable table = table(3, 1);
+        assertEquals(0, pptUtil.fillTable(table, 0, Collections.<String[]>emptyIterator(), true));
+        assertEquals(1, rowCount(table));
+        assertEquals(1, table.getRows().size());
+    }
+
+    @Test
+    public void noTemplateRow() {
+        XSLFTable table = pptx.createSlide().createTable();
+        assertEquals(0, pptUtil.fillTable(table, 0, Collections.<String[]>emptyIterator(), true));
+        try {
+            pptUtil.fillTable(table, 0, new String[][]{{"a"}}, true);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    // 创建一个 rows 行 cols 列的表格，单元格文本为 r<行>c<列>
+    private XSLFTable table(int rows, int cols) {
+        XSLFTable table = pptx.createSlide().createTable();
+        for (int i = 0; i < rows; i++) {
+            XSLFTableRow row = table.addRow();
+            for (int j = 0; j < cols; j++) {
+                row.addCell().setText("r" + i + "c" + j);
+            }
+        }
+        return table;
+    }
+
+    private static int rowCount(XSLFTable table) {
+        return table.getCTTable().sizeOfTrArray();
+    }
+
+    private static void assertRow(XSLFTable table, int rowNum, String... values) {
+        CTTableRow tr = table.getCTTable().getTrList().get(rowNum);
+        assertEquals(values.length, tr.sizeOfTcArray());
+        for (int i = 0; i < values.length; i++) {
+            assertEquals("row " + rowNum + " col " + i, values[i],
+                    tr.getTcList().get(i).getTxBody().getPList().get(0).getRList().get(0).getT());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.livekeys.officetool.pptutil;
+
+import com.livekeys.officetool.pptutil.entity.TagLocation;
+import org.junit.Test;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTRegularTextRun;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextParagraph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TagTokenizerTest {
+
+    @Test
+    public void tagInOneRun() {
+        CTTextParagraph p = paragraph("a{name}b");
+        List<TagLocation> tags = tokenize(p);
+        assertEquals(1, tags.size());
+        assertEquals("name", tags.get(0).getKey());
+        assertEquals(0, tags.get(0).getStartRunIndex());
+        assertEquals(0, tags.get(0).getEndRunIndex());
+        assertEquals(1, tags.get(0).getStartOffset());
+        assertEquals(7, tags.get(0).getEndOffset());
+
+        replace(p, tags, params("name", "X"));
+        assertEquals("aXb", text(p));
+    }
+
+    @Test
+    public void tagSplitAcrossTwoRuns() {
+        CTTextParagraph p = paragraph("a{na", "me}b");
+        List<TagLocation> tags = tokenize(p);
+        assertEquals(1, tags.size());
+        assertEquals("name", tags.get(0).getKey());
+        assertEquals(0, tags.get(0).getStartRunIndex());
+        assertEquals(1, tags.get(0).getEndRunIndex());
+
+        replace(p, tags, params("name", "X"));
+        assertRuns(p, "aX", "b");
+    }
+
+    @Test
+    public void tagSplitAcrossThreeRuns() {
+        CTTextParagraph p = paragraph("a{", "na", "me}b");
+        List<TagLocation> tags = tokenize(p);
+        assertEquals(1, tags.size());
+        assertEquals("name", tags.get(0).getKey());
+        assertEquals(2, tags.get(0).getEndRunIndex());
+
+        assertEquals(3, replace(p, tags, params("name", "X")));
+        assertRuns(p, "aX", "", "b");
+    }
+
+    @Test
+    public void severalTagsInOneRun() {
+        CTTextParagraph p = paragraph("{a}-{b}-{c}");
+        List<TagLocation> tags = tokenize(p);
+        assertEquals(3, tags.size());
+
+        assertEquals(1, replace(p, tags, params("a", "1", "b", "2", "c", "3")));
+        assertEquals("1-2-3", text(p));
+    }
+
+    @Test
+    public void tagsBeforeAndAfterSplitTag() {
+        CTTextParagraph p = paragraph("{a}{b", "}{c}");
+        List<TagLocation> tags = tokenize(p);
+        assertEquals(3, tags.size());
+
+        replace(p, tags, params("a", "1", "b", "2", "c", "3"));
+        assertRuns(p, "12", "3");
+    }
+
+    @Test
+    public void unclosedBrace() {
+        CTTextParagraph p = paragraph("a{name", "b");
+        assertTrue(tokenize(p).isEmpty());
+    }
+
+    @Test
+    public void unclosedBraceBeforeTag() {
+        // 与正则 \{.+?\} 一致，从第一个 { 开始匹配
+        List<TagLocation> tags = tokenize(paragraph("{a {b}"));
+        assertEquals(1, tags.size());
+        assertEquals("a {b", tags.get(0).getKey());
+    }
+
+    @Test
+    public void emptyBraces() {
+        assertTrue(tokenize(paragraph("a{}b")).isEmpty());
+
+        // {} 中的 } 作为标签名的一部分，与正则 \{.+?\} 一致
+        List<TagLocation> tags = tokenize(paragraph("{}x}"));
+        assertEquals(1, tags.size());
+        assertEquals("}x", tags.get(0).getKey());
+    }
+
+    @Test
+    public void tagDoesNotSpanLineBreak() {
+        CTTextParagraph p = CTTextParagraph.Factory.newInstance();
+        p.addNewR().setT("{a");
+        p.addNewBr();
+        p.addNewR().setT("b} {c}");
+        List<TagLocation> tags = tokenize(p);
+        assertEquals(1, tags.size());
+        assertEquals("c", tags.get(0).getKey());
+        assertEquals(1, tags.get(0).getStartRunIndex());
+
+        replace(p, tags, params("a", "1", "b", "2", "c", "3"));
+        assertRuns(p, "{a", "b} 3");
+    }
+
+    @Test
+    public void tagDoesNotSpanField() {
+        CTTextParagraph p = CTTextParagraph.Factory.newInstance();
+        p.addNewR().setT("{a");
+        p.addNewFld().setId("{B6F15528-21DE-4FAA-801E-634DDDAF4B2B}");
+        p.addNewR().setT("b}");
+        assertTrue(tokenize(p).isEmpty());
+    }
+
+    @Test
+    public void tagDoesNotSpanLineTerminator() {
+        assertTrue(tokenize(paragraph("{a\nb}")).isEmpty());
+    }
+
+    @Test
+    public void missingKeyKeepsTagName() {
+        CTTextParagraph p = paragraph("{a}{b}{c}");
+        Map<String, Object> paramMap = params("a", "1", "c", "");
+        replace(p, tokenize(p), paramMap);
+        assertEquals("1bc", text(p));
+    }
+
+    @Test
+    public void firstRunKeepsRunProperties() {
+        CTTextParagraph p = CTTextParagraph.Factory.newInstance();
+        CTRegularTextRun first = p.addNewR();
+        first.setT("{na");
+        first.addNewRPr().setB(true);
+        CTRegularTextRun second = p.addNewR();
+        second.setT("me}!");
+        second.addNewRPr().setI(true);
+
+        replace(p, tokenize(p), params("name", "X"));
+        assertRuns(p, "X", "!");
+        assertTrue(p.getRList().get(0).getRPr().getB());
+        assertFalse(p.getRList().get(0).getRPr().isSetI());
+        assertTrue(p.getRList().get(1).getRPr().getI());
+    }
+
+    private static CTTextParagraph paragraph(String... runs) {
+        CTTextParagraph p = CTTextParagraph.Factory.newInstance();
+        for (String text : runs) {
+            p.addNewR().setT(text);
+        }
+        return p;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static List<TagLocation> tokenize(CTTextParagraph p) {
+        List<TagLocation> tags = new ArrayList<TagLocation>();
+        TagTokenizer.tokenize(p, p.getRArray(), 0, 0, 0, tags);
+        return tags;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int replace(CTTextParagraph p, List<TagLocation> tags, Map<String, Object> paramMap) {
+        return TagTokenizer.replace(p.getRArray(), tags, 0, tags.size(), paramMap);
+    }
+
+    private static Map<String, Object> params(String... keyValues) {
+        Map<String, Object> paramMap = new HashMap<String, Object>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            paramMap.put(keyValues[i], keyValues[i + 1]);
+        }
+        return paramMap;
+    }
+
+    private static String text(CTTextParagraph p) {
+        StringBuilder builder = new StringBuilder();
+        for (CTRegularTextRun r : p.getRList()) {
+            builder.append(r.getT());
+        }
+        return builder.toString();
+    }
+
+    private static void assertRuns(CTTextParagraph p, String... expected) {
+        List<CTRegularTextRun> runs = p.getRList();
+        assertEquals(expected.length, runs.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("run " + i, expected[i], runs.get(i).getT());
+        }
+    }
+}